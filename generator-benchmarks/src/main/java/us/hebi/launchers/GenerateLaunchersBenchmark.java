@@ -0,0 +1,123 @@
+/*-
+ * #%L
+ * Native Launchers Plugin
+ * %%
+ * Copyright (C) 2023 - 2026 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.launchers;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+
+/**
+ * Measures the in-memory part of generate-launchers, i.e., filling the C templates and
+ * writing the JNI config, for different numbers of launchers. The 'regex' benchmark runs
+ * the same values through one replaceAll pass per placeholder for comparison.
+ *
+ * <pre>
+ * mvn package --projects generator-benchmarks -am
+ * java -jar generator-benchmarks/target/benchmarks.jar
+ * </pre>
+ *
+ * @since 17 Oct 2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GenerateLaunchersBenchmark {
+
+    @Param({"1", "100", "5000"})
+    int numLaunchers;
+
+    GenerateNativeLaunchersMojo mojo;
+    Template dynamicTemplate;
+    Template multiCallTemplate;
+
+    @Setup
+    public void setup() throws IOException {
+        mojo = new GenerateNativeLaunchersMojo();
+        mojo.imageName = "benchmark-image";
+        mojo.debug = false;
+        mojo.entryPoint = "jni";
+        mojo.linkMode = "dynamic";
+        mojo.multiCall = true;
+        mojo.multiCallName = "benchmark-launchers";
+        mojo.daemonIdleTimeout = 600;
+        mojo.bulkArgsThreshold = 0;
+        mojo.containerHeapPercentage = 0;
+        mojo.prefetch = false;
+        mojo.jvmArgs = Arrays.asList("-Dglobal.option1=true", "-Dglobal.option2=false");
+
+        List<BaseConfig.Launcher> launchers = new ArrayList<>(numLaunchers);
+        for (int i = 0; i < numLaunchers; i++) {
+            BaseConfig.Launcher launcher = new BaseConfig.Launcher();
+            launcher.name = "launcher-" + i;
+            launcher.mainClass = "us.hebi.samples.app" + (i % 10) + ".Tool" + i;
+            launcher.jvmArgs = i % 2 == 0
+                    ? Collections.singletonList("-Dlocal.option=\"quoted value " + i + "\"")
+                    : Collections.emptyList();
+            launcher.profile = i % 3 == 0 ? "cli" : "none";
+            launchers.add(launcher);
+        }
+        mojo.launchers = launchers;
+
+        dynamicTemplate = Template.load("launcher_dynamic.c");
+        multiCallTemplate = Template.load("launcher_multicall.c");
+    }
+
+    @Benchmark
+    public void fillTemplates(Blackhole blackhole) {
+        for (BaseConfig.Launcher launcher : mojo.launchers) {
+            blackhole.consume(mojo.fillTemplate(dynamicTemplate, launcher));
+        }
+    }
+
+    @Benchmark
+    public void regexTemplates(Blackhole blackhole) throws IOException {
+        String template = Utils.loadResourceAsString(BaseConfig.class, "templates/launcher_dynamic.c");
+        for (BaseConfig.Launcher launcher : mojo.launchers) {
+            String source = template;
+            for (Map.Entry<String, String> entry : mojo.getTemplateValues(launcher).entrySet()) {
+                source = source.replaceAll("\\{\\{" + entry.getKey() + "}}", Matcher.quoteReplacement(entry.getValue()));
+            }
+            blackhole.consume(source);
+        }
+    }
+
+    @Benchmark
+    public String fillMultiCallTemplate() {
+        return mojo.fillMultiCallTemplate(multiCallTemplate);
+    }
+
+    @Benchmark
+    public String jniConfig() {
+        return mojo.toJniConfig();
+    }
+
+}
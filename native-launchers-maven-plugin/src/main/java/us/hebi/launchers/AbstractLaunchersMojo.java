@@ -0,0 +1,64 @@
+/*-
+ * #%L
+ * Native Launchers Plugin
+ * %%
+ * Copyright (C) 2023 - 2026 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.launchers;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Parameters that are shared by the per-module goals and the reactor-wide aggregate goal
+ *
+ * @since 17 Oct 2026
+ */
+abstract class AbstractLaunchersMojo extends AbstractMojo {
+
+    @Parameter(defaultValue = "${plugin}", readonly = true) // Maven 3 only
+    protected PluginDescriptor plugin;
+
+    @Parameter(defaultValue = "${session}", readonly = true)
+    protected MavenSession session;
+
+    @Parameter(property = "launchers.skip", defaultValue = "false")
+    protected Boolean skip;
+
+    /**
+     * Number of launchers that get compiled concurrently. Defaults to the number of available processors.
+     */
+    @Parameter(property = "launchers.threads")
+    protected Integer threads;
+
+    protected int getNumThreads() {
+        if (threads == null || threads <= 0) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        return threads;
+    }
+
+    protected boolean shouldSkip() {
+        if (skip) {
+            getLog().info("Skipping native launcher generation (parameter skip is true)");
+        }
+        return skip;
+    }
+
+}
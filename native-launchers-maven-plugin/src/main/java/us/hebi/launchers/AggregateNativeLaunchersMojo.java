@@ -0,0 +1,208 @@
+/*-
+ * #%L
+ * Native Launchers Plugin
+ * %%
+ * Copyright (C) 2023 - 2026 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.launchers;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.PluginParameterExpressionEvaluator;
+import org.apache.maven.plugin.descriptor.MojoDescriptor;
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectDependenciesResolver;
+import org.codehaus.plexus.component.configurator.ComponentConfigurationException;
+import org.codehaus.plexus.component.configurator.ComponentConfigurator;
+import org.codehaus.plexus.configuration.xml.XmlPlexusConfiguration;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Generates the launchers of all modules in the reactor at once. Each module keeps its
+ * own configuration and gets its own generated sources and jni-config.json, but all
+ * launchers get compiled in a single shared pool, so that builds with many small
+ * modules can use all available cores.
+ *
+ * @since 17 Oct 2026
+ */
+@Mojo(name = "generate-launchers-aggregate", defaultPhase = LifecyclePhase.GENERATE_RESOURCES, aggregator = true, threadSafe = true)
+public class AggregateNativeLaunchersMojo extends AbstractLaunchersMojo {
+
+    @Component(role = ComponentConfigurator.class, hint = "basic")
+    protected ComponentConfigurator configurator;
+
+    @Component
+    protected ProjectDependenciesResolver dependenciesResolver;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (shouldSkip()) return;
+
+        try {
+            // Generate sources for each module
+            List<GenerateNativeLaunchersMojo> modules = new ArrayList<>();
+            for (MavenProject project : session.getProjects()) {
+                for (GenerateNativeLaunchersMojo module : configureModules(project)) {
+                    if (module.shouldSkip()) continue;
+                    getLog().info("Generating launchers for " + project.getArtifactId());
+                    module.generateSources();
+                    modules.add(module);
+                }
+            }
+            if (modules.isEmpty()) {
+                getLog().info("No modules with configured launchers found in the reactor");
+                return;
+            }
+
+            // Compile everything in one pool. The runtimes of all modules need to be
+            // done before any of the launchers can be linked.
+            List<Callable<String>> runtimeTasks = new ArrayList<>();
+            List<Callable<String>> launcherTasks = new ArrayList<>();
+            int[] launcherCounts = new int[modules.size()];
+            for (int i = 0; i < modules.size(); i++) {
+                List<Callable<String>> tasks = modules.get(i).getLauncherTasks();
+                runtimeTasks.addAll(modules.get(i).getRuntimeTasks());
+                launcherTasks.addAll(tasks);
+                launcherCounts[i] = tasks.size();
+            }
+            int numThreads = Math.max(1, Math.min(getNumThreads(), launcherTasks.size()));
+            getLog().info("Compiling " + launcherTasks.size() + " launchers of " + modules.size()
+                    + " modules using " + numThreads + " threads");
+            ExecutorService executor = GenerateNativeLaunchersMojo.newCompilerPool(numThreads);
+            List<String> artifacts;
+            try {
+                GenerateNativeLaunchersMojo.compileAll(executor, runtimeTasks);
+                artifacts = GenerateNativeLaunchersMojo.compileAll(executor, launcherTasks);
+            } finally {
+                // Interrupting a worker also kills the compiler process
+                executor.shutdownNow();
+            }
+
+            // Report per module in the reactor order
+            int offset = 0;
+            for (int i = 0; i < modules.size(); i++) {
+                modules.get(i).reportArtifacts(new ArrayList<>(artifacts.subList(offset, offset + launcherCounts[i])));
+                offset += launcherCounts[i];
+            }
+
+        } catch (IOException ioe) {
+            throw new MojoFailureException(ioe);
+        }
+    }
+
+    /**
+     * Creates a configured generate-launchers mojo for each execution of this plugin in the
+     * given project. The configuration gets merged and evaluated the same way as Maven would
+     * when running the goal in the module itself.
+     */
+    private List<GenerateNativeLaunchersMojo> configureModules(MavenProject project) throws MojoExecutionException {
+        Plugin modulePlugin = project.getBuild().getPluginsAsMap().get(plugin.getPluginLookupKey());
+        if (modulePlugin == null) {
+            return Collections.emptyList();
+        }
+
+        Xpp3Dom pluginConfig = (Xpp3Dom) modulePlugin.getConfiguration();
+        List<Xpp3Dom> configs = new ArrayList<>();
+        for (PluginExecution execution : modulePlugin.getExecutions()) {
+            if (execution.getGoals().contains(GENERATE_GOAL)) {
+                configs.add(Xpp3Dom.mergeXpp3Dom(copyOf((Xpp3Dom) execution.getConfiguration()), copyOf(pluginConfig)));
+            }
+        }
+        if (configs.isEmpty()) {
+            // Plugin that is only configured for running the goal from the command line
+            configs.add(copyOf(pluginConfig));
+        }
+
+        MojoDescriptor descriptor = plugin.getMojo(GENERATE_GOAL);
+        MavenSession moduleSession = session.clone();
+        moduleSession.setCurrentProject(project);
+        List<GenerateNativeLaunchersMojo> modules = new ArrayList<>();
+        for (Xpp3Dom config : configs) {
+            // Only keep known parameters and fill in the defaults
+            Xpp3Dom defaults = getDefaultConfiguration(descriptor);
+            Xpp3Dom merged = config == null ? defaults : Xpp3Dom.mergeXpp3Dom(config, defaults);
+            Xpp3Dom mojoConfig = new Xpp3Dom("configuration");
+            for (Xpp3Dom child : merged.getChildren()) {
+                if (descriptor.getParameterMap().containsKey(child.getName())) {
+                    mojoConfig.addChild(new Xpp3Dom(child));
+                }
+            }
+
+            GenerateNativeLaunchersMojo module = new GenerateNativeLaunchersMojo();
+            module.setLog(getLog());
+            module.dependenciesResolver = dependenciesResolver;
+            try {
+                configurator.configureComponent(module,
+                        new XmlPlexusConfiguration(mojoConfig),
+                        new PluginParameterExpressionEvaluator(moduleSession, new MojoExecution(descriptor, mojoConfig)),
+                        plugin.getClassRealm());
+            } catch (ComponentConfigurationException ex) {
+                throw new MojoExecutionException("Invalid launcher configuration in " + project.getArtifactId() + ": " + ex.getMessage(), ex);
+            }
+            if (module.discover) {
+                // The aggregator runs once before any module of the reactor gets compiled, so
+                // discovery would scan stale or missing classes regardless of the bound phase
+                throw new MojoExecutionException("Launcher discovery in " + project.getArtifactId()
+                        + " can't be combined with " + plugin.getGoalPrefix() + ":" + AGGREGATE_GOAL
+                        + " because the modules are not compiled yet. Use the " + GENERATE_GOAL
+                        + " goal bound to the process-classes phase for this module instead.");
+            }
+            if (module.launchers.isEmpty()) continue;
+            modules.add(module);
+        }
+        return modules;
+    }
+
+    /**
+     * Configuration with the expression and default value of every parameter, i.e., the base
+     * configuration that Maven uses for the executions of a mojo
+     */
+    private static Xpp3Dom getDefaultConfiguration(MojoDescriptor descriptor) {
+        Xpp3Dom config = new Xpp3Dom("configuration");
+        for (org.apache.maven.plugin.descriptor.Parameter parameter : descriptor.getParameters()) {
+            Xpp3Dom child = new Xpp3Dom(parameter.getName());
+            if (!Utils.isNullOrEmpty(parameter.getExpression())) {
+                child.setValue(parameter.getExpression());
+            }
+            if (!Utils.isNullOrEmpty(parameter.getDefaultValue())) {
+                child.setAttribute("default-value", parameter.getDefaultValue());
+            }
+            config.addChild(child);
+        }
+        return config;
+    }
+
+    private static Xpp3Dom copyOf(Xpp3Dom dom) {
+        return dom == null ? null : new Xpp3Dom(dom);
+    }
+
+    private static final String GENERATE_GOAL = "generate-launchers";
+    private static final String AGGREGATE_GOAL = "generate-launchers-aggregate";
+
+}
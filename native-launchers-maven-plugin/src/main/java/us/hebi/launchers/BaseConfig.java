@@ -20,28 +20,24 @@
 
 package us.hebi.launchers;
 
-import org.apache.maven.execution.MavenSession;
-import org.apache.maven.plugin.AbstractMojo;
-import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.*;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.util.filter.ScopeDependencyFilter;
 
+import java.io.File;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Collections;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 
 /**
  * @author Florian Enner
  * @since 09 Jun 2023
  */
-abstract class BaseConfig extends AbstractMojo {
-
-    @Parameter(defaultValue = "${plugin}", readonly = true) // Maven 3 only
-    protected PluginDescriptor plugin;
-
-    @Parameter(defaultValue = "${session}", readonly = true)
-    protected MavenSession session;
+abstract class BaseConfig extends AbstractLaunchersMojo {
 
     @Parameter(defaultValue = "${project.groupId}", readonly = true)
     protected String groupId;
@@ -56,15 +52,116 @@ abstract class BaseConfig extends AbstractMojo {
     @Parameter(property = "imageName", defaultValue = "${project.artifactId}", required = true)
     protected String imageName; // default to native-maven-plugin value
 
-    @Parameter(property = "launchers.skip", defaultValue = "false")
-    protected Boolean skip;
-
     @Parameter(property = "launchers.debug", defaultValue = "false")
     protected Boolean debug;
 
     @Parameter(property = "launchers.timeout", defaultValue = "20")
     protected Integer timeout;
 
+    /**
+     * Skips compiling launchers whose sources, compiler arguments, and compiler version
+     * did not change since the last build.
+     */
+    @Parameter(property = "launchers.incremental", defaultValue = "true")
+    protected Boolean incremental;
+
+    /**
+     * Shares compiled launchers across projects and clean builds via a content-addressed cache
+     * that is keyed by the same inputs as incremental builds. Works independently of incremental
+     * builds, and restored files are private copies. The cache has no eviction policy and can be
+     * deleted at any time.
+     */
+    @Parameter(property = "launchers.cache", defaultValue = "false")
+    protected Boolean cache;
+
+    @Parameter(property = "launchers.cacheDirectory", defaultValue = "${user.home}/.m2/native-launchers-cache")
+    protected String cacheDirectory;
+
+    /**
+     * Compiles the runtime code that is shared by all launchers only once and links the
+     * resulting object into each launcher. Otherwise, it gets compiled with every launcher.
+     */
+    @Parameter(property = "launchers.sharedRuntime", defaultValue = "false")
+    protected Boolean sharedRuntime;
+
+    /**
+     * Produces a single multi-call executable (similar to busybox) that contains all launchers
+     * and selects the launcher based on the name it was called with. The individual launchers
+     * are created as links to that executable.
+     */
+    @Parameter(property = "launchers.multiCall", defaultValue = "false")
+    protected Boolean multiCall;
+
+    @Parameter(property = "launchers.multiCallName", defaultValue = "${project.artifactId}-launchers")
+    protected String multiCallName;
+
+    /**
+     * How multi-call launchers refer to the executable: symlink, hardlink, or copy. Defaults
+     * to hardlink on Windows and to symlink everywhere else.
+     */
+    @Parameter(property = "launchers.linkType")
+    protected String linkType;
+
+    /**
+     * How the launchers call into the native image. 'jni' (default) creates a JNI environment and
+     * looks up the main method via reflection. 'cEntryPoint' generates Java stubs with a @CEntryPoint
+     * that get called directly, which requires the GraalVM SDK as a compile dependency. Note that
+     * only system properties (-D) and runtime options such as -Xmx or -XX:ActiveProcessorCount are
+     * supported as jvm args in that mode. The runtime options get passed to the isolate.
+     */
+    @Parameter(property = "launchers.entryPoint", defaultValue = "jni")
+    protected String entryPoint;
+
+    /**
+     * How the launchers bind to the native-image library. 'dynamic' (default) loads it at runtime
+     * via dlopen. 'linked' links against a generated stand-in library, so the system loader binds
+     * all symbols eagerly (-z now) before main and resolves the library via the default rpaths.
+     * Not supported on Windows, where it falls back to dynamic.
+     */
+    @Parameter(property = "launchers.linkMode", defaultValue = "dynamic")
+    protected String linkMode;
+
+    /**
+     * Seconds that a launcher daemon keeps running without receiving requests. Only
+     * applies to launchers that have daemon mode enabled.
+     */
+    @Parameter(property = "launchers.daemonIdleTimeout", defaultValue = "600")
+    protected Integer daemonIdleTimeout;
+
+    /**
+     * Minimum number of arguments that get passed to Java as a single direct buffer rather
+     * than one JNI call per argument. Requires a generated decoder class that gets added to
+     * the compile sources. Can be overridden at runtime via the LAUNCHER_BULK_ARGS environment
+     * variable. Disabled if zero.
+     */
+    @Parameter(property = "launchers.bulkArgsThreshold", defaultValue = "0")
+    protected Integer bulkArgsThreshold;
+
+    /**
+     * Fully qualified name of the generated decoder class for bulk arguments. Defaults to
+     * LauncherArgs in the package of the first launcher's main class, so that the class
+     * neither collides with other modules nor splits a package across JPMS modules.
+     */
+    @Parameter(property = "launchers.argsDecoderClass")
+    protected String argsDecoderClass;
+
+    /**
+     * Percentage of a cgroup (container) memory limit that gets used for the maximum heap size
+     * on Linux. Also limits the active processor count to the cpu quota. Explicitly set options
+     * take precedence. Disabled if zero.
+     */
+    @Parameter(property = "launchers.containerHeapPercentage", defaultValue = "0")
+    protected Integer containerHeapPercentage;
+
+    /**
+     * Starts reading the native-image library into the page cache before it gets loaded, which
+     * reduces the major page faults of a cold start. Uses the page ranges of a '<library>.prefetch'
+     * file next to the library if available. Can be overridden at runtime via the LAUNCHER_PREFETCH
+     * environment variable. Currently only supported on Linux with the dynamic link mode.
+     */
+    @Parameter(property = "launchers.prefetch", defaultValue = "false")
+    protected Boolean prefetch;
+
     @Parameter(property = "launchers.sourceDirectory", required = true,
             defaultValue = "${project.build.directory}/generated-sources/native-launchers")
     protected String sourceDirectory;
@@ -72,6 +169,15 @@ abstract class BaseConfig extends AbstractMojo {
     @Parameter
     protected List<String> compiler;
 
+    /**
+     * Optimization flags that get added when supported by the compiler. 'startup' optimizes for speed
+     * and removes unused sections, symbols, and relocations, 'size' does the same with a focus on
+     * size, and 'debug' disables optimizations and adds debug symbols. 'none' (default) only uses
+     * the compiler and linker args.
+     */
+    @Parameter(property = "launchers.compilerProfile", defaultValue = "none")
+    protected String compilerProfile;
+
     @Parameter
     protected List<String> compilerArgs = Collections.emptyList();
 
@@ -81,8 +187,28 @@ abstract class BaseConfig extends AbstractMojo {
     @Parameter
     protected List<String> jvmArgs = Collections.emptyList();
 
-    @Parameter(required = true)
-    protected List<Launcher> launchers;
+    @Parameter
+    protected List<Launcher> launchers = Collections.emptyList();
+
+    /**
+     * Adds a launcher for each main class on the runtime classpath that is marked with the
+     * discoveryAnnotation or listed in a META-INF/native-launchers file. The launcher names
+     * get derived from the class names, e.g., 'HelloWorld' becomes 'hello-world'. Explicitly
+     * configured launchers take precedence.
+     */
+    @Parameter(property = "launchers.discover", defaultValue = "false")
+    protected Boolean discover;
+
+    /**
+     * Fully qualified name of the marker annotation for discovering main classes, e.g.,
+     * com.example.CommandLineTool. Any retention works, and an optional 'name' element
+     * overrides the derived launcher name.
+     */
+    @Parameter(property = "launchers.discoveryAnnotation")
+    protected String discoveryAnnotation;
+
+    @Component
+    protected ProjectDependenciesResolver dependenciesResolver;
 
     public Path getGeneratedJavaSourceDir() {
         return Paths.get(sourceDirectory, "java").toAbsolutePath();
@@ -135,6 +261,50 @@ abstract class BaseConfig extends AbstractMojo {
         @Parameter(property = "cocoaFileHandler", defaultValue = "false")
         protected boolean cocoaFileHandler = false;
 
+        /**
+         * Keeps a warm isolate in a background process and forwards subsequent calls to it
+         * via a per-user Unix domain socket. Falls back to running in-process if no daemon
+         * is available. Currently only supported on Linux.
+         */
+        @Parameter(property = "daemon", defaultValue = "false")
+        protected boolean daemon = false;
+
+        /**
+         * Allows running many invocations inside a single process by setting the LAUNCHER_BATCH
+         * environment variable. Launchers that don't enable it ignore the variable, so that it
+         * can't leak into unrelated launchers. Not supported on Windows.
+         */
+        @Parameter(property = "batch", defaultValue = "false")
+        protected boolean batch = false;
+
+        /**
+         * What happens after the main method returns. 'propagate' (default) returns the exit code
+         * and exits normally, 'destroy' waits for all non-daemon threads and tears down the VM, and
+         * 'halt' flushes the output streams and exits immediately without any teardown. System.exit()
+         * codes are passed through in all modes.
+         */
+        @Parameter(property = "exitMode", defaultValue = "propagate")
+        protected String exitMode = "propagate";
+
+        /**
+         * Expands '@file' arguments natively before they get passed to Java. Supports 'none' (default),
+         * 'lines' (one argument per line), and 'nul' (NUL-separated, e.g., 'find -print0'). An argument
+         * starting with '@@' gets passed on with a single '@'.
+         */
+        @Parameter(property = "argFiles", defaultValue = "none")
+        protected String argFiles = "none";
+
+        /**
+         * Heap sizing for the type of application. 'none' (default) keeps the defaults of the image,
+         * 'cli' uses a young generation that is large enough for typical short runs to never collect,
+         * 'service' bounds the footprint of long-running processes with a small young generation and
+         * max heap, and 'gui' uses a medium young generation for short pauses during interaction. The
+         * options get added before the jvmArgs, so these can still override individual values. A
+         * containerHeapPercentage replaces the -Xmx and -Xmn of a profile.
+         */
+        @Parameter(property = "profile", defaultValue = "none")
+        protected String profile = "none";
+
         @Parameter
         protected List<String> jvmArgs = Collections.emptyList();
 
@@ -168,28 +338,185 @@ abstract class BaseConfig extends AbstractMojo {
             return Utils.isWindows() ? name + ".exe" : name;
         }
 
+        public String getArgFileMode() {
+            switch (argFiles) {
+                case "none":
+                    return "ARG_FILES_NONE";
+                case "lines":
+                    return "ARG_FILES_LINES";
+                case "nul":
+                    return "ARG_FILES_NUL";
+                default:
+                    throw new IllegalArgumentException("Unknown argFiles mode for launcher " + name + ": "
+                            + argFiles + ". Expected none, lines, or nul");
+            }
+        }
+
+        public String getExitMode() {
+            switch (exitMode) {
+                case "propagate":
+                    return "EXIT_MODE_PROPAGATE";
+                case "destroy":
+                    return "EXIT_MODE_DESTROY";
+                case "halt":
+                    return "EXIT_MODE_HALT";
+                default:
+                    throw new IllegalArgumentException("Unknown exitMode for launcher " + name + ": "
+                            + exitMode + ". Expected propagate, destroy, or halt");
+            }
+        }
+
+        public List<String> getProfileArgs() {
+            switch (profile) {
+                case "none":
+                    return Collections.emptyList();
+                case "cli":
+                    return Collections.singletonList("-Xmn256m");
+                case "service":
+                    return Arrays.asList("-Xmn32m", "-Xmx512m");
+                case "gui":
+                    return Collections.singletonList("-Xmn64m");
+                default:
+                    throw new IllegalArgumentException("Unknown profile for launcher " + name + ": "
+                            + profile + ". Expected none, cli, service, or gui");
+            }
+        }
+
         public String getSymbolName() {
             if (symbolName == null) {
-                symbolName = "run_" + mainClass.replaceAll("\\.", "_") + "_main";
+                symbolName = "run_" + mainClass.replaceAll("[.$]", "_") + "_main";
             }
             return symbolName;
         }
 
     }
 
+    protected boolean useCEntryPoints() {
+        switch (entryPoint) {
+            case "jni":
+                return false;
+            case "cEntryPoint":
+                return true;
+            default:
+                throw new IllegalArgumentException("Unknown entry point type: " + entryPoint + ". Expected jni or cEntryPoint");
+        }
+    }
+
+    protected boolean isLinked() {
+        switch (linkMode) {
+            case "dynamic":
+                return false;
+            case "linked":
+                return !Utils.isWindows();
+            default:
+                throw new IllegalArgumentException("Unknown link mode: " + linkMode + ". Expected dynamic or linked");
+        }
+    }
+
+    protected String getImageName(Launcher launcher) {
+        return Utils.getNonNull(launcher.imageName, this.imageName);
+    }
+
+    protected static String getLibFileName(String imageName) {
+        return imageName + (Utils.isMac() ? ".dylib" : ".so");
+    }
+
+    /**
+     * Adds the discovered launchers to the configured ones. Discovery needs the compiled classes,
+     * so executions that use it should be bound to the process-classes phase or later.
+     */
+    protected void discoverLaunchers() throws MojoExecutionException {
+        if (discover && !discovered) {
+            discovered = true;
+            try {
+                long start = System.nanoTime();
+                LauncherScanner scanner = new LauncherScanner(discoveryAnnotation);
+                List<Launcher> found = scanner.scan(getRuntimeClasspath());
+                long millis = (System.nanoTime() - start) / 1000000;
+                getLog().info("Discovered " + found.size() + " launchers in " + scanner.getNumScannedClasses()
+                        + " classes (" + millis + " ms)");
+
+                Set<String> names = new HashSet<>();
+                Set<String> mainClasses = new HashSet<>();
+                List<Launcher> merged = new ArrayList<>(launchers);
+                for (Launcher launcher : launchers) {
+                    names.add(launcher.getName());
+                    mainClasses.add(launcher.getMainClass());
+                }
+                for (Launcher launcher : found) {
+                    if (mainClasses.contains(launcher.getMainClass())) continue;
+                    if (!names.add(launcher.getName())) {
+                        throw new MojoExecutionException("Discovered launcher name " + launcher.getName()
+                                + " of " + launcher.getMainClass() + " is already in use");
+                    }
+                    printDebug("Discovered launcher " + launcher.getName() + " for " + launcher.getMainClass());
+                    merged.add(launcher);
+                }
+                launchers = merged;
+            } catch (IOException ex) {
+                throw new MojoExecutionException("Failed to discover launchers", ex);
+            }
+        }
+        if (launchers.isEmpty()) {
+            throw new MojoExecutionException("No launchers configured" + (discover ? " or discovered" : ""));
+        }
+    }
+
+    private List<Path> getRuntimeClasspath() throws MojoExecutionException {
+        MavenProject project = session.getCurrentProject();
+        List<Path> classpath = new ArrayList<>();
+        classpath.add(Paths.get(project.getBuild().getOutputDirectory()));
+        try {
+            DefaultDependencyResolutionRequest request = new DefaultDependencyResolutionRequest(project, session.getRepositorySession());
+            request.setResolutionFilter(new ScopeDependencyFilter(Arrays.asList("compile", "runtime"), null));
+            for (Dependency dependency : dependenciesResolver.resolve(request).getDependencies()) {
+                File file = dependency.getArtifact().getFile();
+                if (file != null) {
+                    classpath.add(file.toPath());
+                }
+            }
+        } catch (DependencyResolutionException ex) {
+            throw new MojoExecutionException("Failed to resolve the dependencies for launcher discovery", ex);
+        }
+        return classpath;
+    }
+
+    private boolean discovered = false;
+
+    protected int getDaemonIdleTimeout(Launcher launcher) {
+        return launcher.daemon ? Math.max(1, daemonIdleTimeout) : 0;
+    }
+
+    protected int getBulkArgsThreshold() {
+        return useCEntryPoints() ? 0 : Math.max(0, bulkArgsThreshold);
+    }
+
+    protected String getArgsDecoderClass() {
+        if (argsDecoderClass != null && !argsDecoderClass.isEmpty()) {
+            return argsDecoderClass;
+        }
+        String mainClass = launchers.get(0).getMainClass();
+        int separator = mainClass.lastIndexOf('.');
+        return separator < 0 ? "LauncherArgs" : mainClass.substring(0, separator + 1) + "LauncherArgs";
+    }
+
+    protected int getContainerHeapPercentage() {
+        if (containerHeapPercentage < 0 || containerHeapPercentage > 100) {
+            throw new IllegalArgumentException("containerHeapPercentage needs to be within [0, 100]: " + containerHeapPercentage);
+        }
+        return containerHeapPercentage;
+    }
+
     protected void printDebug(String message) {
         if (debug) {
             getLog().info(message);
-        } else {
+        } else if (getLog().isDebugEnabled()) {
             getLog().debug(message);
         }
     }
 
-    protected boolean shouldSkip() {
-        if (skip) {
-            getLog().info("Skipping native launcher generation (parameter skip is true)");
-        }
-        return skip;
+    protected boolean isDebugOutputEnabled() {
+        return debug || getLog().isDebugEnabled();
     }
 
 }
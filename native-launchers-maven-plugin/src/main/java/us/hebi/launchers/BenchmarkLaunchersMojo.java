@@ -0,0 +1,365 @@
+/*-
+ * #%L
+ * Native Launchers Plugin
+ * %%
+ * Copyright (C) 2023 - 2026 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.launchers;
+
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static us.hebi.launchers.Utils.*;
+
+/**
+ * Runs each produced launcher multiple times and reports the distribution of the
+ * wall-clock startup times as well as the peak memory usage. The results get written
+ * as JSON and CSV, so that startup regressions can be tracked in CI.
+ *
+ * @since 16 Oct 2026
+ */
+@Mojo(name = "benchmark-launchers", defaultPhase = LifecyclePhase.VERIFY, requiresDependencyResolution = ResolutionScope.RUNTIME, threadSafe = true)
+public class BenchmarkLaunchersMojo extends BaseConfig {
+
+    @Parameter(property = "launchers.benchmark.iterations", defaultValue = "20")
+    protected int iterations;
+
+    @Parameter(property = "launchers.benchmark.warmup", defaultValue = "3")
+    protected int warmup;
+
+    /**
+     * Arguments that get passed to each launcher
+     */
+    @Parameter
+    protected List<String> benchmarkArgs = Collections.emptyList();
+
+    /**
+     * Additionally runs each main class via 'java -cp' for comparison
+     */
+    @Parameter(property = "launchers.benchmark.baseline", defaultValue = "false")
+    protected boolean baseline;
+
+    /**
+     * Additionally runs each launcher with the given numbers of generated arguments, once
+     * converted individually and once in bulk. Requires a bulkArgsThreshold to be configured.
+     */
+    @Parameter(property = "launchers.benchmark.argumentCounts")
+    protected List<Integer> argumentCounts = Collections.emptyList();
+
+    /**
+     * Number of invocations that get started at the same time in each iteration, e.g., to
+     * check how the launchers behave under contention. Every invocation counts as a sample.
+     */
+    @Parameter(property = "launchers.benchmark.concurrency", defaultValue = "1")
+    protected int concurrency;
+
+    @Parameter(property = "launchers.benchmark.java", defaultValue = "${java.home}/bin/java")
+    protected String javaExecutable;
+
+    @Parameter(property = "launchers.benchmark.outputDirectory", defaultValue = "${project.build.directory}/launcher-benchmarks")
+    protected String benchmarkDirectory;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (shouldSkip()) return;
+        if (iterations < 1) {
+            throw new MojoExecutionException("Benchmark iterations need to be positive: " + iterations);
+        }
+        if (concurrency < 1) {
+            throw new MojoExecutionException("Benchmark concurrency needs to be positive: " + concurrency);
+        }
+        discoverLaunchers();
+
+        executor = concurrency > 1 ? Executors.newFixedThreadPool(concurrency) : null;
+        try {
+            List<Result> results = new ArrayList<>();
+            for (Launcher launcher : launchers) {
+                Path executable = Paths.get(getNonNull(launcher.outputDirectory, outputDirectory))
+                        .resolve(launcher.getOutputName())
+                        .toAbsolutePath();
+                if (!Files.isExecutable(executable)) {
+                    throw new MojoExecutionException("Launcher executable does not exist: " + executable);
+                }
+
+                List<String> command = new ArrayList<>();
+                command.add(executable.toString());
+                command.addAll(benchmarkArgs);
+                results.add(benchmark(launcher.getName(), command, Collections.emptyMap()));
+
+                for (int count : argumentCounts) {
+                    List<String> argCommand = new ArrayList<>(command);
+                    for (int i = 0; i < count; i++) {
+                        argCommand.add(String.valueOf(i));
+                    }
+                    String name = launcher.getName() + " [" + count + " args";
+                    results.add(benchmark(name + "]", argCommand, Collections.singletonMap(BULK_ARGS_ENV, "0")));
+                    results.add(benchmark(name + ", bulk]", argCommand, Collections.singletonMap(BULK_ARGS_ENV, "1")));
+                }
+
+                if (baseline) {
+                    List<String> javaCommand = new ArrayList<>();
+                    javaCommand.add(javaExecutable);
+                    javaCommand.add("-cp");
+                    javaCommand.add(String.join(File.pathSeparator, session.getCurrentProject().getRuntimeClasspathElements()));
+                    javaCommand.addAll(launcher.jvmArgs);
+                    javaCommand.add(launcher.getMainClass());
+                    javaCommand.addAll(benchmarkArgs);
+                    results.add(benchmark(launcher.getName() + " (java)", javaCommand, Collections.emptyMap()));
+                }
+            }
+
+            Path targetDir = Paths.get(benchmarkDirectory);
+            Files.createDirectories(targetDir);
+            writeToDisk(toJson(results), targetDir, "launcher-benchmarks.json");
+            writeToDisk(toCsv(results), targetDir, "launcher-benchmarks.csv");
+            getLog().info(toTable(results));
+            getLog().info("Wrote benchmark results to " + targetDir);
+
+        } catch (IOException | DependencyResolutionRequiredException ex) {
+            throw new MojoFailureException(ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while benchmarking launchers", ex);
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private Result benchmark(String name, List<String> command, Map<String, String> env) throws IOException, InterruptedException, MojoExecutionException {
+        printDebug("Benchmarking " + name);
+        for (int i = 0; i < warmup; i++) {
+            runOnce(command, env);
+        }
+        long[] nanos = new long[iterations * concurrency];
+        for (int i = 0; i < iterations; i++) {
+            if (executor == null) {
+                nanos[i] = runOnce(command, env);
+            } else {
+                runConcurrently(command, env, nanos, i * concurrency);
+            }
+        }
+        Arrays.sort(nanos);
+        return new Result(name, nanos, measurePeakRss(command, env));
+    }
+
+    private long runOnce(List<String> command, Map<String, String> env) throws IOException, InterruptedException, MojoExecutionException {
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .redirectInput(NULL_FILE)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(NULL_FILE))
+                .redirectError(ProcessBuilder.Redirect.appendTo(NULL_FILE));
+        builder.environment().putAll(env);
+        long start = System.nanoTime();
+        Process process = builder.start();
+        if (!process.waitFor(timeout, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            throw new MojoExecutionException("Launcher did not finish within " + timeout + " seconds: " + command.get(0));
+        }
+        long nanos = System.nanoTime() - start;
+        if (process.exitValue() != 0) {
+            throw new MojoExecutionException("Launcher returned error code " + process.exitValue() + ": " + command.get(0));
+        }
+        return nanos;
+    }
+
+    private void runConcurrently(List<String> command, Map<String, String> env, long[] nanos, int offset) throws IOException, InterruptedException, MojoExecutionException {
+        List<Callable<Long>> tasks = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            tasks.add(() -> runOnce(command, env));
+        }
+        List<Future<Long>> futures = executor.invokeAll(tasks);
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                nanos[offset + i] = futures.get(i).get();
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                if (cause instanceof MojoExecutionException) throw (MojoExecutionException) cause;
+                if (cause instanceof IOException) throw (IOException) cause;
+                throw new MojoExecutionException("Concurrent launcher invocation failed", cause);
+            }
+        }
+    }
+
+    /**
+     * Measures the peak resident set size in kB in a separate run, so that the
+     * measurement overhead does not affect the timings. The value comes from the
+     * rusage of the child process as reported by /usr/bin/time. Returns -1 if
+     * that is not available, which gets reported as n/a.
+     */
+    private long measurePeakRss(List<String> command, Map<String, String> env) throws IOException, InterruptedException {
+        Path timeCmd = Paths.get("/usr/bin/time");
+        if (isWindows() || !Files.isExecutable(timeCmd)) {
+            if (!rssWarningShown) {
+                getLog().info("Peak RSS is not available because " + timeCmd + " could not be found");
+                rssWarningShown = true;
+            }
+            return -1;
+        }
+        Path output = Files.createTempFile("launcher-rss", ".txt");
+        try {
+            List<String> args = new ArrayList<>();
+            args.add(timeCmd.toString());
+            if (isMac()) {
+                args.add("-l");
+            } else {
+                args.addAll(Arrays.asList("-f", "%M", "-o", output.toString()));
+            }
+            args.addAll(command);
+            ProcessBuilder builder = new ProcessBuilder(args)
+                    .redirectInput(NULL_FILE)
+                    .redirectOutput(ProcessBuilder.Redirect.appendTo(NULL_FILE))
+                    .redirectError(isMac() ? output.toFile() : NULL_FILE);
+            builder.environment().putAll(env);
+            Process process = builder.start();
+            if (!process.waitFor(timeout, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                return -1;
+            }
+            if (process.exitValue() != 0) {
+                printDebug("Could not measure peak RSS. " + timeCmd + " returned error code " + process.exitValue());
+                return -1;
+            }
+            for (String line : Files.readAllLines(output, StandardCharsets.UTF_8)) {
+                line = line.trim();
+                if (isMac() && line.endsWith("maximum resident set size")) {
+                    return Long.parseLong(line.split("\\s+")[0]) / 1024; // bytes
+                } else if (!isMac() && line.matches("\\d+")) {
+                    return Long.parseLong(line); // kB
+                }
+            }
+            return -1;
+        } catch (RuntimeException ex) {
+            printDebug("Could not measure peak RSS: " + ex);
+            return -1;
+        } finally {
+            Files.deleteIfExists(output);
+        }
+    }
+
+    private static String toJson(List<Result> results) {
+        JsonWriter json = new JsonWriter().beginArray();
+        for (Result result : results) {
+            json.beginObject()
+                    .name("name").value(result.name)
+                    .name("iterations").value(result.nanos.length)
+                    .name("minMillis").rawValue(formatMillis(result.min()))
+                    .name("p50Millis").rawValue(formatMillis(result.percentile(50)))
+                    .name("p90Millis").rawValue(formatMillis(result.percentile(90)))
+                    .name("p99Millis").rawValue(formatMillis(result.percentile(99)))
+                    .name("maxMillis").rawValue(formatMillis(result.max()))
+                    .name("peakRssKb").rawValue(result.peakRssKb < 0 ? "null" : String.valueOf(result.peakRssKb))
+                    .endObject();
+        }
+        return json.endArray().toString();
+    }
+
+    private static String toCsv(List<Result> results) {
+        StringBuilder csv = new StringBuilder("name,iterations,minMillis,p50Millis,p90Millis,p99Millis,maxMillis,peakRssKb\n");
+        for (Result result : results) {
+            csv.append('"').append(result.name.replace("\"", "\"\"")).append("\",")
+                    .append(result.nanos.length).append(',')
+                    .append(formatMillis(result.min())).append(',')
+                    .append(formatMillis(result.percentile(50))).append(',')
+                    .append(formatMillis(result.percentile(90))).append(',')
+                    .append(formatMillis(result.percentile(99))).append(',')
+                    .append(formatMillis(result.max())).append(',')
+                    .append(formatRss(result.peakRssKb)).append('\n');
+        }
+        return csv.toString();
+    }
+
+    private static String toTable(List<Result> results) {
+        int nameWidth = "launcher".length() + 2;
+        for (Result result : results) {
+            nameWidth = Math.max(nameWidth, result.name.length() + 2);
+        }
+        StringBuilder table = new StringBuilder("Startup benchmark [ms]:\n");
+        appendSpaced(table, "launcher", nameWidth);
+        for (String column : Arrays.asList("min", "p50", "p90", "p99", "max", "rss [kB]")) {
+            appendSpaced(table, column, 10);
+        }
+        for (Result result : results) {
+            table.append('\n');
+            appendSpaced(table, result.name, nameWidth);
+            appendSpaced(table, formatMillis(result.min()), 10);
+            appendSpaced(table, formatMillis(result.percentile(50)), 10);
+            appendSpaced(table, formatMillis(result.percentile(90)), 10);
+            appendSpaced(table, formatMillis(result.percentile(99)), 10);
+            appendSpaced(table, formatMillis(result.max()), 10);
+            appendSpaced(table, formatRss(result.peakRssKb), 10);
+        }
+        return table.toString();
+    }
+
+    private static String formatMillis(long nanos) {
+        return String.format(Locale.US, "%.3f", nanos / 1E6);
+    }
+
+    private static String formatRss(long peakRssKb) {
+        return peakRssKb < 0 ? "n/a" : String.valueOf(peakRssKb);
+    }
+
+    static class Result {
+
+        Result(String name, long[] sortedNanos, long peakRssKb) {
+            this.name = name;
+            this.nanos = sortedNanos;
+            this.peakRssKb = peakRssKb;
+        }
+
+        long min() {
+            return nanos[0];
+        }
+
+        long max() {
+            return nanos[nanos.length - 1];
+        }
+
+        long percentile(double percent) {
+            // nearest-rank method
+            int rank = (int) Math.ceil(percent / 100 * nanos.length);
+            return nanos[Math.max(0, Math.min(nanos.length - 1, rank - 1))];
+        }
+
+        final String name;
+        final long[] nanos;
+        final long peakRssKb;
+
+    }
+
+    private ExecutorService executor;
+    private boolean rssWarningShown = false;
+
+    private static final String BULK_ARGS_ENV = "LAUNCHER_BULK_ARGS";
+    private static final File NULL_FILE = new File(isWindows() ? "NUL" : "/dev/null");
+
+}
@@ -0,0 +1,305 @@
+/*-
+ * #%L
+ * Native Launchers Plugin
+ * %%
+ * Copyright (C) 2023 - 2026 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.launchers;
+
+import org.apache.maven.plugin.MojoFailureException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Minimal reader for the parts of ELF binaries (executables and shared libraries) that
+ * affect how they get loaded, i.e., the dynamic section, relocations, and symbols. Only
+ * the section headers are used, which are still present in stripped binaries. Only the
+ * headers and the sections of interest get read, so the size of the file is not limited.
+ * All offsets and indices are checked, and malformed files fail with the name of the file.
+ *
+ * @since 17 Oct 2026
+ */
+class ElfFile {
+
+    static boolean isElf(Path file) throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) < 4) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            channel.read(magic, 0);
+            return magic.getInt(0) == ELF_MAGIC;
+        }
+    }
+
+    static ElfFile read(Path file) throws IOException, MojoFailureException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new ElfFile(file, channel);
+        }
+    }
+
+    private ElfFile(Path file, FileChannel channel) throws IOException, MojoFailureException {
+        this.file = file;
+        this.channel = channel;
+        this.size = channel.size();
+        ByteBuffer header = readBytes(0, Math.min(size, 64), "header").order(ByteOrder.BIG_ENDIAN);
+        if (size < 52 || header.getInt(0) != ELF_MAGIC) {
+            throw malformed("not an ELF file");
+        }
+        int elfClass = header.get(4);
+        int encoding = header.get(5);
+        if ((elfClass != 1 && elfClass != 2) || (encoding != 1 && encoding != 2)) {
+            throw malformed("unknown class " + elfClass + " or encoding " + encoding);
+        }
+        is64 = elfClass == 2;
+        order = encoding == 2 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+        header.order(order);
+        if (is64 && size < 64) {
+            throw malformed("truncated header");
+        }
+
+        // Section headers
+        long shOffset = is64 ? header.getLong(0x28) : Integer.toUnsignedLong(header.getInt(0x20));
+        int shEntrySize = Short.toUnsignedInt(header.getShort(is64 ? 0x3A : 0x2E));
+        int shCount = Short.toUnsignedInt(header.getShort(is64 ? 0x3C : 0x30));
+        if (shCount > 0 && shEntrySize < (is64 ? 64 : 40)) {
+            throw malformed("invalid section header size " + shEntrySize);
+        }
+        ByteBuffer table = readBytes(shOffset, (long) shCount * shEntrySize, "section headers");
+        Section[] sections = new Section[shCount];
+        for (int i = 0; i < shCount; i++) {
+            sections[i] = new Section(table, i * shEntrySize);
+        }
+
+        for (Section section : sections) {
+            switch (section.type) {
+                case SHT_DYNAMIC:
+                    readDynamic(section, getLinkedSection(sections, section));
+                    break;
+                case SHT_REL:
+                case SHT_RELA:
+                    if ((section.flags & SHF_ALLOC) != 0 && section.entrySize > 0) {
+                        relocations += section.size / section.entrySize;
+                    }
+                    break;
+                case SHT_DYNSYM:
+                    readDynamicSymbols(section, getLinkedSection(sections, section));
+                    break;
+                case SHT_SYMTAB:
+                    symbols += section.entrySize > 0 ? Math.max(0, section.size / section.entrySize - 1) : 0;
+                    break;
+            }
+        }
+    }
+
+    private Section getLinkedSection(Section[] sections, Section section) throws MojoFailureException {
+        if (section.link <= 0 || section.link >= sections.length) {
+            throw malformed("section link " + Integer.toUnsignedString(section.link) + " is out of range");
+        }
+        return sections[section.link];
+    }
+
+    private void readDynamic(Section dynamic, Section strings) throws IOException, MojoFailureException {
+        int entrySize = is64 ? 16 : 8;
+        ByteBuffer entries = readSection(dynamic, "dynamic section");
+        ByteBuffer stringTable = readSection(strings, "dynamic string table");
+        for (int offset = 0; offset + entrySize <= entries.limit(); offset += entrySize) {
+            long tag = is64 ? entries.getLong(offset) : entries.getInt(offset);
+            long value = is64 ? entries.getLong(offset + 8) : Integer.toUnsignedLong(entries.getInt(offset + 4));
+            if (tag == DT_NULL) {
+                break;
+            } else if (tag == DT_NEEDED) {
+                needed.add(readString(stringTable, value));
+            } else if (tag == DT_RPATH) {
+                rpath.addAll(Arrays.asList(readString(stringTable, value).split(":")));
+            } else if (tag == DT_RUNPATH) {
+                runpath.addAll(Arrays.asList(readString(stringTable, value).split(":")));
+            }
+        }
+    }
+
+    private void readDynamicSymbols(Section symbolTable, Section strings) throws IOException, MojoFailureException {
+        int entrySize = is64 ? 24 : 16;
+        ByteBuffer entries = readSection(symbolTable, "dynamic symbol table");
+        ByteBuffer stringTable = readSection(strings, "dynamic string table");
+        for (int offset = entrySize; offset + entrySize <= entries.limit(); offset += entrySize) {
+            long name = Integer.toUnsignedLong(entries.getInt(offset));
+            int sectionIndex = Short.toUnsignedInt(entries.getShort(offset + (is64 ? 6 : 14)));
+            dynamicSymbols++;
+            if (sectionIndex != SHN_UNDEF) {
+                definedSymbols.add(readString(stringTable, name));
+            }
+        }
+    }
+
+    private String readString(ByteBuffer table, long offset) throws MojoFailureException {
+        if (offset < 0 || offset >= table.limit()) {
+            throw malformed("string offset " + offset + " is outside of the string table");
+        }
+        int start = (int) offset;
+        int end = start;
+        while (end < table.limit() && table.get(end) != 0) {
+            end++;
+        }
+        if (end == table.limit()) {
+            throw malformed("unterminated string at offset " + offset);
+        }
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = table.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private ByteBuffer readSection(Section section, String name) throws IOException, MojoFailureException {
+        return readBytes(section.offset, section.size, name);
+    }
+
+    /**
+     * Reads a range of the file that needs to be fully contained in it
+     */
+    private ByteBuffer readBytes(long offset, long length, String name) throws IOException, MojoFailureException {
+        if (offset < 0 || length < 0 || offset > size || length > size - offset) {
+            throw malformed(name + " at offset " + offset + " with " + length + " bytes exceeds the file size of " + size + " bytes");
+        } else if (length > Integer.MAX_VALUE) {
+            throw malformed(name + " is too large (" + length + " bytes)");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of " + file);
+            }
+        }
+        buffer.flip();
+        return buffer.order(order);
+    }
+
+    private MojoFailureException malformed(String reason) {
+        return new MojoFailureException("Malformed ELF file " + file + ": " + reason);
+    }
+
+    /**
+     * Directories that the dynamic loader searches for libraries of this file. Note that
+     * RPATH gets ignored if RUNPATH is present.
+     */
+    public List<Path> getSearchPath(Path origin) {
+        List<Path> dirs = new ArrayList<>();
+        for (String entry : runpath.isEmpty() ? rpath : runpath) {
+            if (entry.isEmpty()) continue;
+            String dir = entry.replace("${ORIGIN}", origin.toString()).replace("$ORIGIN", origin.toString());
+            dirs.add(origin.resolve(dir).normalize());
+        }
+        return dirs;
+    }
+
+    public boolean definesSymbol(String name) {
+        return definedSymbols.contains(name);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public List<String> getNeeded() {
+        return needed;
+    }
+
+    public List<String> getRunpath() {
+        return runpath.isEmpty() ? rpath : runpath;
+    }
+
+    public long getRelocations() {
+        return relocations;
+    }
+
+    public long getDynamicSymbols() {
+        return dynamicSymbols;
+    }
+
+    public long getSymbols() {
+        return symbols;
+    }
+
+    private class Section {
+
+        Section(ByteBuffer buffer, int offset) {
+            // all fields are within the entry size that got checked for the header
+            type = buffer.getInt(offset + 4);
+            if (is64) {
+                flags = buffer.getLong(offset + 8);
+                this.offset = buffer.getLong(offset + 24);
+                size = buffer.getLong(offset + 32);
+                link = buffer.getInt(offset + 40);
+                entrySize = buffer.getLong(offset + 56);
+            } else {
+                flags = Integer.toUnsignedLong(buffer.getInt(offset + 8));
+                this.offset = Integer.toUnsignedLong(buffer.getInt(offset + 16));
+                size = Integer.toUnsignedLong(buffer.getInt(offset + 20));
+                link = buffer.getInt(offset + 24);
+                entrySize = Integer.toUnsignedLong(buffer.getInt(offset + 36));
+            }
+        }
+
+        final int type;
+        final long flags;
+        final long offset;
+        final long size;
+        final int link;
+        final long entrySize;
+
+    }
+
+    private final Path file;
+    private final FileChannel channel;
+    private final long size;
+    private final boolean is64;
+    private ByteOrder order = ByteOrder.LITTLE_ENDIAN;
+    private final List<String> needed = new ArrayList<>();
+    private final List<String> rpath = new ArrayList<>();
+    private final List<String> runpath = new ArrayList<>();
+    private final Set<String> definedSymbols = new HashSet<>();
+    private long relocations = 0;
+    private long dynamicSymbols = 0;
+    private long symbols = 0;
+
+    private static final int ELF_MAGIC = 0x7F454C46; // big-endian read of "\x7fELF"
+    private static final int SHT_SYMTAB = 2;
+    private static final int SHT_RELA = 4;
+    private static final int SHT_DYNAMIC = 6;
+    private static final int SHT_REL = 9;
+    private static final int SHT_DYNSYM = 11;
+    private static final long SHF_ALLOC = 0x2;
+    private static final int SHN_UNDEF = 0;
+    private static final long DT_NULL = 0;
+    private static final long DT_NEEDED = 1;
+    private static final long DT_RPATH = 15;
+    private static final long DT_RUNPATH = 29;
+
+}
@@ -20,6 +20,7 @@
 
 package us.hebi.launchers;
 
+import com.squareup.javapoet.*;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
@@ -28,86 +29,594 @@ import org.codehaus.plexus.util.cli.CommandLineException;
 import org.codehaus.plexus.util.cli.CommandLineUtils;
 import org.codehaus.plexus.util.cli.Commandline;
 
+import javax.lang.model.element.Modifier;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static us.hebi.launchers.Template.*;
 import static us.hebi.launchers.Utils.*;
 
 /**
  * @author Florian Enner
  * @since 09 Jun 2023
  */
-@Mojo(name = "generate-launchers", defaultPhase = LifecyclePhase.GENERATE_RESOURCES)
+@Mojo(name = "generate-launchers", defaultPhase = LifecyclePhase.GENERATE_RESOURCES, threadSafe = true)
 public class GenerateNativeLaunchersMojo extends BaseConfig {
 
+    private static final String UTILS_HEADER = "launcher_utils.h";
+    private static final String RUNTIME_HEADER = "launcher_runtime.h";
+    private static final String RUNTIME_SOURCE = "launcher_runtime.c";
+    private static final String LINK_STUB_DIR = "linked";
+
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
         if (shouldSkip()) return;
 
         try {
+            generateSources();
+            int numThreads = Math.max(1, Math.min(getNumThreads(), executables.size()));
+            printDebug("Compiling " + executables.size() + " launchers using " + numThreads + " threads");
+            ExecutorService executor = newCompilerPool(numThreads);
+            try {
+                compileAll(executor, getRuntimeTasks());
+                reportArtifacts(compileAll(executor, getLauncherTasks()));
+            } finally {
+                // Interrupting a worker also kills the compiler process
+                executor.shutdownNow();
+            }
+        } catch (IOException ioe) {
+            throw new MojoFailureException(ioe);
+        }
+
+    }
+
+    /**
+     * Generates the JNI config or entry points, the C sources, and the link stubs of all
+     * launchers. Compilation happens separately, so that the aggregator can compile the
+     * launchers of multiple modules in a shared pool.
+     */
+    void generateSources() throws MojoExecutionException, IOException {
+        discoverLaunchers();
+        if (Utils.isWindows()) {
+            checkImageNames();
+        }
+        Path targetDir = getGeneratedMetaInfDir();
+        if (useCEntryPoints()) {
+            checkEntryPointOptions();
+            // Generate Java stubs that get called directly without JNI
+            Path javaDir = getGeneratedJavaSourceDir();
+            printDebug("Generating @CEntryPoint stubs in " + javaDir);
+            generateEntryPoints(javaDir);
+            session.getCurrentProject().addCompileSourceRoot(javaDir.toString());
+            if (Files.deleteIfExists(targetDir.resolve("jni-config.json"))) {
+                updatedFiles.add(targetDir.resolve("jni-config.json") + " (deleted)");
+            }
+        } else {
             // Generate JNI config, so we can call the classes from the launchers
             printDebug("Generating JNI configuration for native-image");
-            Path targetDir = getGeneratedMetaInfDir();
             generateJniConfig(targetDir);
+            if (getBulkArgsThreshold() > 0) {
+                Path javaDir = getGeneratedJavaSourceDir();
+                printDebug("Generating bulk args decoder in " + javaDir);
+                generateArgsDecoder(javaDir);
+                session.getCurrentProject().addCompileSourceRoot(javaDir.toString());
+            }
+        }
 
-
-            // Generate wrapper sources
-            String template = loadResourceAsString(BaseConfig.class, "templates/launcher_dynamic.c");
-            Path sourceDir = getGeneratedCSourceDir();
-            Files.createDirectories(sourceDir);
-            printDebug("Generating C sources in " + sourceDir);
-            boolean needsCocoa = false;
+        // Generate wrapper sources
+        sourceDir = getGeneratedCSourceDir();
+        Files.createDirectories(sourceDir);
+        printDebug("Generating C sources in " + sourceDir);
+        boolean needsCocoa = false;
+        if (multiCall) {
+            Template template = Template.load("launcher_multicall.c");
+            Launcher multiCallLauncher = createMultiCallLauncher();
+            needsCocoa = multiCallLauncher.enableCocoa();
+            writeOutput(fillMultiCallTemplate(template), sourceDir, multiCallLauncher.getCFileName());
+            executables = Collections.singletonList(multiCallLauncher);
+        } else {
+            Template template = Template.load("launcher_dynamic.c");
             for (Launcher launcher : launchers) {
                 needsCocoa |= launcher.enableCocoa();
                 String sourceCode = fillTemplate(template, launcher);
-                writeToDisk(sourceCode, sourceDir, launcher.getCFileName());
-                printDebug("Generated source file: " + launcher.getCFileName());
+                writeOutput(sourceCode, sourceDir, launcher.getCFileName());
             }
+            executables = launchers;
+        }
 
-            // Add shared header
-            writeToDisk(loadResourceAsString(BaseConfig.class, "templates/launcher_utils.h"), sourceDir, "launcher_utils.h");
+        // Add shared headers and runtime
+        for (String file : Arrays.asList(UTILS_HEADER, RUNTIME_HEADER, RUNTIME_SOURCE)) {
+            writeOutput(Template.load(file).getText(), sourceDir, file);
+        }
+
+        // Add optional Cocoa launcher
+        if (isMac() && needsCocoa) {
+            writeOutput(
+                    Template.load("AppDelegate.m").getText(),
+                    sourceDir, "AppDelegate.m");
+        }
+
+        // Add stand-in libraries for linking against the native image
+        toolchain = Toolchain.probe(getCompiler(), sourceDir, getLog());
+        if (isLinked()) {
+            generateLinkStubs(toolchain, sourceDir);
+        } else if ("linked".equals(linkMode)) {
+            getLog().warn("Link mode 'linked' is not supported on Windows. Falling back to 'dynamic'");
+        }
+
+        printDebug("Compiler profile " + compilerProfile + ": " + toolchain.getCompileFlags(compilerProfile, getLog())
+                + " " + toolchain.getLinkFlags(compilerProfile, getLog()));
+    }
+
+    void reportArtifacts(List<String> artifacts) throws IOException {
+        if (multiCall) {
+            artifacts.addAll(createMultiCallLinks(Paths.get(artifacts.get(0))));
+        }
+
+        if (updatedFiles.isEmpty()) {
+            getLog().info("All generated files and artifacts are up to date");
+        } else {
+            getLog().info("Updated files:\n " + String.join("\n ", updatedFiles));
+        }
+        getLog().info("Produced artifacts:\n " + String.join("\n ", artifacts));
+    }
+
+    /**
+     * Writes generated content only if it changed, and keeps track of the updated files
+     */
+    private boolean writeOutput(String content, Path targetDir, String fileName) throws IOException {
+        if (writeToDisk(content, targetDir, fileName)) {
+            printDebug("Updated " + fileName);
+            updatedFiles.add(targetDir.resolve(fileName).toString());
+            return true;
+        }
+        printDebug("Unchanged " + fileName);
+        return false;
+    }
 
-            // Add optional Cocoa launcher
-            if (isMac() && needsCocoa) {
-                writeToDisk(
-                        loadResourceAsString(BaseConfig.class, "templates/AppDelegate.m"),
-                        sourceDir, "AppDelegate.m");
-                printDebug("Copied source file: AppDelegate.m");
+    private void writeOutput(JavaFile javaFile, Path javaDir) throws IOException {
+        Path packageDir = javaDir;
+        for (String name : javaFile.packageName.split("\\.")) {
+            packageDir = packageDir.resolve(name);
+        }
+        Files.createDirectories(packageDir);
+        writeOutput(javaFile.toString(), packageDir, javaFile.typeSpec.name + ".java");
+    }
+
+    private final List<String> updatedFiles = Collections.synchronizedList(new ArrayList<>());
+    private Toolchain toolchain;
+    private Path sourceDir;
+    private List<Launcher> executables;
+
+    /**
+     * Compiles the shared runtime, which needs to be done before compiling the launchers
+     */
+    List<Callable<String>> getRuntimeTasks() {
+        if (!sharedRuntime) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(() -> {
+            compileRuntime(toolchain, sourceDir);
+            return sourceDir.resolve(getRuntimeObjectName()).toString();
+        });
+    }
+
+    List<Callable<String>> getLauncherTasks() {
+        List<Callable<String>> tasks = new ArrayList<>(executables.size());
+        for (Launcher launcher : executables) {
+            tasks.add(() -> buildLauncher(toolchain, sourceDir, launcher));
+        }
+        return tasks;
+    }
+
+    static ExecutorService newCompilerPool(int numThreads) {
+        return Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+            final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "native-launchers-compiler-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
             }
+        });
+    }
 
-            // Build the executables
-            List<String> artifacts = new ArrayList<>();
-            List<String> compiler = getCompiler();
-            for (Launcher launcher : launchers) {
+    /**
+     * Runs compile tasks using a bounded pool of worker threads. The output of each
+     * compiler invocation is buffered, so that diagnostics of different launchers don't
+     * interleave. The first failure cancels all remaining work.
+     */
+    static List<String> compileAll(ExecutorService executor, List<Callable<String>> tasks) throws MojoExecutionException, IOException {
+        try {
+            CompletionService<String> completionService = new ExecutorCompletionService<>(executor);
+            List<Future<String>> futures = new ArrayList<>(tasks.size());
+            for (Callable<String> task : tasks) {
+                futures.add(completionService.submit(task));
+            }
 
-                // Compile source
-                getLog().info("Compiling " + launcher.getCFileName());
-                Path exeFile = compileSource(compiler, sourceDir, launcher);
+            // Wait in order of completion, so that we can fail fast
+            for (int i = 0; i < futures.size(); i++) {
+                getResult(completionService.take());
+            }
 
-                // Move result to the desired output directory
-                Path outputDir = Paths.get(getNonNull(launcher.outputDirectory, outputDirectory));
-                Files.createDirectories(outputDir);
-                Path targetFile = outputDir.resolve(launcher.getOutputName());
-                Files.move(exeFile, targetFile, StandardCopyOption.REPLACE_EXISTING);
-                artifacts.add(targetFile.toString());
+            // Report in the submitted order
+            List<String> artifacts = new ArrayList<>(futures.size());
+            for (Future<String> future : futures) {
+                artifacts.add(getResult(future));
+            }
+            return artifacts;
 
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while compiling launchers", ex);
+        }
+    }
+
+    private static <T> T getResult(Future<T> future) throws MojoExecutionException, IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof MojoExecutionException) {
+                throw (MojoExecutionException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
             }
+            throw new MojoExecutionException("Failed to compile launcher", cause);
+        }
+    }
 
-            getLog().info("Produced artifacts:\n " + String.join("\n ", artifacts));
+    private String buildLauncher(Toolchain toolchain, Path sourceDir, Launcher launcher) throws MojoExecutionException, IOException {
+        Path outputDir = Paths.get(getNonNull(launcher.outputDirectory, outputDirectory));
+        Path targetFile = outputDir.resolve(launcher.getOutputName());
+        List<String> processArgs = getCompileArgs(toolchain, launcher);
 
-        } catch (IOException ioe) {
-            throw new MojoFailureException(ioe);
+        // Skip compilation if none of the inputs have changed
+        Path keyFile = sourceDir.resolve(launcher.getName() + ".sha256");
+        String cacheKey = null;
+        if (incremental || cache) {
+            cacheKey = computeCacheKey(sourceDir, getInputFiles(launcher), processArgs, toolchain.getVersion());
+            if (incremental && isUpToDate(keyFile, cacheKey, targetFile)) {
+                getLog().info("Skipping " + launcher.getCFileName() + " (up to date)");
+                return targetFile.toString();
+            }
+        }
+        Files.deleteIfExists(keyFile);
+
+        // Reuse launchers that were compiled by other projects or builds
+        Files.createDirectories(outputDir);
+        if (cacheKey != null && restoreFromCache(cacheKey, targetFile)) {
+            getLog().info("Restored " + launcher.getCFileName() + " from cache");
+            updatedFiles.add(targetFile.toString());
+            writeToDisk(cacheKey, sourceDir, keyFile.getFileName().toString());
+            return targetFile.toString();
+        }
+
+        // Compile source
+        getLog().info("Compiling " + launcher.getCFileName());
+        Path exeFile = compileSource(sourceDir, launcher, processArgs);
+
+        // Move result to the desired output directory
+        Files.move(exeFile, targetFile, StandardCopyOption.REPLACE_EXISTING);
+        updatedFiles.add(targetFile.toString());
+
+        if (cacheKey != null) {
+            storeInCache(cacheKey, targetFile);
+            writeToDisk(cacheKey, sourceDir, keyFile.getFileName().toString());
+        }
+        return targetFile.toString();
+    }
+
+    /**
+     * Compiles the runtime that is shared by all launchers into a single object file,
+     * so that each launcher compilation only needs to process its own constants.
+     */
+    private void compileRuntime(Toolchain toolchain, Path sourceDir) throws MojoExecutionException, IOException {
+        String objectFile = getRuntimeObjectName();
+        List<String> processArgs = new ArrayList<>(toolchain.getCommand());
+        processArgs.addAll(toolchain.getCompileFlags(compilerProfile, getLog()));
+        processArgs.addAll(compilerArgs);
+        if (isWindows()) {
+            processArgs.add("/c");
+            processArgs.add("/Fo" + objectFile);
+        } else {
+            processArgs.add("-c");
+            processArgs.add("-o");
+            processArgs.add(objectFile);
+        }
+        processArgs.add(RUNTIME_SOURCE);
+        addJniIncludes(processArgs);
+        if (debug) processArgs.add("-DDEBUG");
+
+        Path keyFile = sourceDir.resolve("launcher_runtime.sha256");
+        String cacheKey = null;
+        if (incremental || cache) {
+            List<String> inputFiles = Arrays.asList(RUNTIME_SOURCE, RUNTIME_HEADER, UTILS_HEADER);
+            cacheKey = computeCacheKey(sourceDir, inputFiles, processArgs, toolchain.getVersion());
+            if (incremental && isUpToDate(keyFile, cacheKey, sourceDir.resolve(objectFile))) {
+                getLog().info("Skipping " + RUNTIME_SOURCE + " (up to date)");
+                return;
+            }
+        }
+        Files.deleteIfExists(keyFile);
+
+        if (cacheKey != null && restoreFromCache(cacheKey, sourceDir.resolve(objectFile))) {
+            getLog().info("Restored " + RUNTIME_SOURCE + " from cache");
+            writeToDisk(cacheKey, sourceDir, keyFile.getFileName().toString());
+            return;
+        }
+
+        getLog().info("Compiling " + RUNTIME_SOURCE);
+        runProcess(sourceDir, processArgs);
+
+        if (cacheKey != null) {
+            storeInCache(cacheKey, sourceDir.resolve(objectFile));
+            writeToDisk(cacheKey, sourceDir, keyFile.getFileName().toString());
+        }
+    }
+
+    /**
+     * Generates and compiles a stand-in library for each native image that exports the symbols
+     * that the launchers reference. The launchers get linked against it, but at runtime the system
+     * loader resolves the actual library with the same name, so the native image does not need
+     * to exist yet.
+     */
+    private void generateLinkStubs(Toolchain toolchain, Path sourceDir) throws MojoExecutionException, IOException {
+        Map<String, Set<String>> symbols = new TreeMap<>();
+        for (Launcher launcher : launchers) {
+            Set<String> imageSymbols = symbols.computeIfAbsent(getImageName(launcher), key -> new TreeSet<>());
+            if (useCEntryPoints()) {
+                imageSymbols.add(launcher.getSymbolName());
+            }
+        }
+
+        Template template = Template.load("launcher_stub.c");
+        Path stubDir = sourceDir.resolve(LINK_STUB_DIR);
+        Files.createDirectories(stubDir);
+        for (Map.Entry<String, Set<String>> entry : symbols.entrySet()) {
+            String libFile = getLibFileName(entry.getKey());
+            StringJoiner functions = new StringJoiner("\n");
+            functions.add("int JNI_CreateJavaVM(void* pvm, void* penv, void* args) { return -1; }");
+            functions.add("int graal_create_isolate(void* params, void* isolate, void* thread) { return -1; }");
+            functions.add("int graal_tear_down_isolate(void* thread) { return -1; }");
+            for (String symbol : entry.getValue()) {
+                functions.add("int " + symbol + "(void* thread, int nOptions, char** options, int argc, char** argv) { return -1; }");
+            }
+            Map<String, String> values = new HashMap<>();
+            values.put("LIB_FILE", libFile);
+            values.put("STUB_FUNCTIONS", functions.toString());
+            String stubSource = template.fill(values);
+
+            String sourceFile = entry.getKey() + ".c";
+            if (!writeOutput(stubSource, stubDir, sourceFile) && Files.isRegularFile(stubDir.resolve(libFile))) {
+                continue;
+            }
+
+            // Compile into a library with the same name, e.g., the soname or install name
+            getLog().info("Compiling " + LINK_STUB_DIR + "/" + sourceFile);
+            List<String> processArgs = new ArrayList<>(toolchain.getCommand());
+            processArgs.addAll(compilerArgs);
+            processArgs.add("-o");
+            processArgs.add(libFile);
+            processArgs.add(sourceFile);
+            if (isMac()) {
+                processArgs.add("-dynamiclib");
+                processArgs.add("-Wl,-install_name,@rpath/" + libFile);
+            } else {
+                processArgs.add("-shared");
+                processArgs.add("-fPIC");
+                processArgs.add("-Wl,-soname," + libFile);
+            }
+            runProcess(stubDir, processArgs);
+        }
+    }
+
+    private static String getRuntimeObjectName() {
+        return isWindows() ? "launcher_runtime.obj" : "launcher_runtime.o";
+    }
+
+    /**
+     * Source files that are read by the compiler. Changes to any of them require a recompilation.
+     */
+    private List<String> getInputFiles(Launcher launcher) {
+        List<String> files = new ArrayList<>();
+        files.add(launcher.getCFileName());
+        files.add(UTILS_HEADER);
+        files.add(RUNTIME_HEADER);
+        files.add(sharedRuntime ? getRuntimeObjectName() : RUNTIME_SOURCE);
+        if (isLinked()) {
+            files.add(LINK_STUB_DIR + "/" + getImageName(launcher) + ".c");
+        }
+        if (isMac() && launcher.enableCocoa()) {
+            files.add("AppDelegate.m");
+        }
+        return files;
+    }
+
+    static String computeCacheKey(Path sourceDir, List<String> inputFiles, List<String> processArgs, String compilerVersion) throws IOException {
+        MessageDigest digest = newSha256();
+        updateDigest(digest, compilerVersion);
+        updateDigest(digest, String.join("\0", processArgs));
+        for (String file : inputFiles) {
+            updateDigest(digest, file);
+            digest.update(Files.readAllBytes(sourceDir.resolve(file)));
+        }
+        return toHexString(digest.digest());
+    }
+
+    private static boolean isUpToDate(Path keyFile, String cacheKey, Path outputFile) throws IOException {
+        // Note that multi-call builds may have replaced the output with a link
+        return Files.isRegularFile(outputFile, LinkOption.NOFOLLOW_LINKS) && Files.isRegularFile(keyFile)
+                && cacheKey.equals(new String(Files.readAllBytes(keyFile), StandardCharsets.UTF_8));
+    }
+
+    private Path getCacheFile(String cacheKey) {
+        return Paths.get(cacheDirectory).toAbsolutePath().resolve(cacheKey.substring(0, 2)).resolve(cacheKey);
+    }
+
+    /**
+     * Copies a previously compiled output from the shared cache. The output always gets a
+     * private copy, so that in-place modifications such as stripping or code signing can't
+     * change the cached entry.
+     */
+    private boolean restoreFromCache(String cacheKey, Path outputFile) throws IOException {
+        if (!cache) return false;
+        Path cacheFile = getCacheFile(cacheKey);
+        if (!Files.isRegularFile(cacheFile)) {
+            return false;
+        }
+        Files.copy(cacheFile, outputFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+        outputFile.toFile().setWritable(true, true);
+        return true;
+    }
+
+    /**
+     * Adds a compiled output to the shared cache. Entries get moved in atomically, so concurrent
+     * builds never see partial files. Failures only disable caching and do not fail the build.
+     */
+    private void storeInCache(String cacheKey, Path outputFile) {
+        if (!cache) return;
+        Path cacheFile = getCacheFile(cacheKey);
+        if (Files.isRegularFile(cacheFile)) {
+            return;
+        }
+        Path tmpFile = null;
+        try {
+            Files.createDirectories(cacheFile.getParent());
+            tmpFile = Files.createTempFile(cacheFile.getParent(), cacheKey, ".tmp");
+            Files.copy(outputFile, tmpFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+            tmpFile.toFile().setWritable(false, false);
+            Files.move(tmpFile, cacheFile, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            getLog().debug("Failed to add " + outputFile + " to the cache", ex);
+        } finally {
+            if (tmpFile != null) {
+                try {
+                    Files.deleteIfExists(tmpFile);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    String fillTemplate(Template template, Launcher launcher) {
+        return template.fill(getTemplateValues(launcher));
+    }
+
+    Map<String, String> getTemplateValues(Launcher launcher) {
+        Map<String, String> values = new HashMap<>(32);
+        values.put("DISPLAY_NAME", escapeC(launcher.getName()));
+        values.put("MAIN_CLASS", escapeC(launcher.getMainClass()));
+        values.put("JVM_ARGS", toCStringList(getJvmArgs(launcher), ",\n    "));
+        values.put("IMAGE_NAME", escapeC(getImageName(launcher)));
+        values.put("USER_MODEL_ID", getUserModelIdLiteral(launcher));
+        values.put("ENTRY_POINT", getEntryPointLiteral(launcher));
+        values.put("DAEMON_IDLE_TIMEOUT", String.valueOf(getDaemonIdleTimeout(launcher)));
+        values.put("BULK_ARGS_THRESHOLD", String.valueOf(getBulkArgsThreshold()));
+        values.put("ARGS_DECODER", getArgsDecoderLiteral());
+        values.put("ARG_FILES", launcher.getArgFileMode());
+        values.put("CONTAINER_HEAP_PERCENTAGE", String.valueOf(getContainerHeapPercentage()));
+        values.put("LINKED_SYMBOLS_REF", isLinked() ? "&linkedSymbols" : "NULL");
+        values.put("EXIT_MODE", launcher.getExitMode());
+        values.put("PREFETCH", prefetch ? "1" : "0");
+        values.put("BATCH", launcher.batch ? "1" : "0");
+        values.put("LINKED_SYMBOLS", isLinked()
+                ? "// Bound by the system loader before main\n" + getLinkedSymbols(launcher, "linkedSymbols") + "\n"
+                : "");
+        return values;
+    }
+
+    String fillMultiCallTemplate(Template template) {
+        StringJoiner argTables = new StringJoiner("\n");
+        StringJoiner entries = new StringJoiner(",\n");
+        StringJoiner linkedSymbols = new StringJoiner("\n", "// Bound by the system loader before main\n", "\n");
+        for (int i = 0; i < launchers.size(); i++) {
+            Launcher launcher = launchers.get(i);
+            String argTable = "jvmArgs" + i;
+            argTables.add("static const char* const " + argTable + "[] = {\n    "
+                    + toCStringList(getJvmArgs(launcher), ",\n    ")
+                    + "\n};");
+            entries.add("    { " + (launcher.enableCocoa() ? 1 : 0) + ", {\n" +
+                    "        " + toCString(launcher.getName()) + ",\n" +
+                    "        " + toCString(launcher.getMainClass()) + ",\n" +
+                    "        LIB_FILE(" + toCString(getImageName(launcher)) + "),\n" +
+                    "        " + getUserModelIdLiteral(launcher) + ",\n" +
+                    "        sizeof(" + argTable + ") / sizeof(" + argTable + "[0]),\n" +
+                    "        " + argTable + ",\n" +
+                    "        " + getEntryPointLiteral(launcher) + ",\n" +
+                    "        " + getDaemonIdleTimeout(launcher) + ",\n" +
+                    "        " + getBulkArgsThreshold() + ",\n" +
+                    "        " + getArgsDecoderLiteral() + ",\n" +
+                    "        " + launcher.getArgFileMode() + ",\n" +
+                    "        " + getContainerHeapPercentage() + ",\n" +
+                    "        " + (isLinked() ? "&linkedSymbols" + i : "NULL") + ",\n" +
+                    "        " + launcher.getExitMode() + ",\n" +
+                    "        " + (prefetch ? 1 : 0) + ",\n" +
+                    "        " + (launcher.batch ? 1 : 0) + "\n" +
+                    "    } }");
+            if (isLinked()) {
+                linkedSymbols.add(getLinkedSymbols(launcher, "linkedSymbols" + i));
+            }
+        }
+        Map<String, String> values = new HashMap<>();
+        values.put("JVM_ARG_TABLES", argTables.toString());
+        values.put("LINKED_SYMBOLS", isLinked() ? linkedSymbols.toString() : "");
+        values.put("LAUNCHER_ENTRIES", entries.toString());
+        values.put("MULTI_CALL_NAME", escapeC(multiCallName));
+        return template.fill(values);
+    }
+
+    private static String toCStringList(List<String> values, String delimiter) {
+        StringJoiner joiner = new StringJoiner(delimiter);
+        for (String value : values) {
+            joiner.add(toCString(value));
+        }
+        return joiner.toString();
+    }
+
+    private static String getUserModelIdLiteral(Launcher launcher) {
+        return isWindows() ? launcher.getUserModelId()
+                .map(Template::toCString)
+                .orElse("NULL") : "NULL";
+    }
+
+    /**
+     * Declares the library symbols that a linked launcher references directly
+     */
+    private String getLinkedSymbols(Launcher launcher, String variable) {
+        if (useCEntryPoints()) {
+            String symbol = launcher.getSymbolName();
+            return "extern int graal_create_isolate(void* params, void* isolate, void* thread);\n" +
+                    "extern int graal_tear_down_isolate(void* thread);\n" +
+                    "extern int " + symbol + "(void* thread, int nOptions, char** options, int argc, char** argv);\n" +
+                    "static const LinkedSymbols " + variable + " = { NULL, (void*)&graal_create_isolate, (void*)&" + symbol
+                    + ", (void*)&graal_tear_down_isolate };";
         }
+        return "extern int JNI_CreateJavaVM(void* pvm, void* penv, void* args);\n" +
+                "static const LinkedSymbols " + variable + " = { (void*)&JNI_CreateJavaVM, NULL, NULL, NULL };";
+    }
+
+    private String getArgsDecoderLiteral() {
+        return getBulkArgsThreshold() > 0 ? toCString(getArgsDecoderClass().replace('.', '/')) : "NULL";
+    }
 
+    private String getEntryPointLiteral(Launcher launcher) {
+        return useCEntryPoints() ? toCString(launcher.getSymbolName()) : "NULL";
     }
 
-    private String fillTemplate(String template, Launcher launcher) {
+    List<String> getJvmArgs(Launcher launcher) {
         String imageName = getNonNull(launcher.imageName, this.imageName);
         String entrypoint = launcher.getSymbolName();
 
@@ -119,31 +628,112 @@ public class GenerateNativeLaunchersMojo extends BaseConfig {
         if (debug) {
             jvmArgs.add("-Dlauncher.debug=true");
         }
+        for (String arg : launcher.getProfileArgs()) {
+            // Container limits size the max heap and the young generation, so the fixed sizes of a
+            // profile would conflict, e.g., a 256m young generation in a 192m heap
+            if (getContainerHeapPercentage() > 0 && (arg.startsWith("-Xmx") || arg.startsWith("-Xmn"))) continue;
+            jvmArgs.add(arg);
+        }
         jvmArgs.addAll(this.jvmArgs);
         jvmArgs.addAll(launcher.jvmArgs);
 
-        printDebug("global jvm args: " + this.jvmArgs);
-        printDebug("local jvm args: " + launcher.jvmArgs);
+        if (isDebugOutputEnabled()) {
+            printDebug("profile jvm args: " + launcher.getProfileArgs());
+            printDebug("global jvm args: " + this.jvmArgs);
+            printDebug("local jvm args: " + launcher.jvmArgs);
+        }
+        return jvmArgs;
+    }
 
-        StringBuilder argString = new StringBuilder();
-        for (String jvmArg : jvmArgs) {
-            argString.append("\n    options[nOptions++].optionString = \"").append(jvmArg).append("\";");
+    /**
+     * Creates a launcher definition for the multi-call executable that contains all
+     * configured launchers. Settings that apply to the whole executable need to match.
+     */
+    private Launcher createMultiCallLauncher() throws MojoExecutionException {
+        Launcher multiCallLauncher = new Launcher();
+        multiCallLauncher.name = multiCallName;
+        multiCallLauncher.mainClass = "";
+        multiCallLauncher.console = launchers.get(0).console;
+        multiCallLauncher.imageName = getImageName(launchers.get(0));
+        for (Launcher launcher : launchers) {
+            if (isLinked() && !getImageName(launcher).equals(multiCallLauncher.imageName)) {
+                throw new MojoExecutionException("Linked multi-call launchers require the same imageName for all launchers");
+            }
+            if (launcher.console != multiCallLauncher.console) {
+                throw new MojoExecutionException("Multi-call launchers require the same console setting for all launchers");
+            }
+            if (launcher.enableCocoa()) {
+                if (multiCallLauncher.cocoa && launcher.cocoaFileHandler != multiCallLauncher.cocoaFileHandler) {
+                    throw new MojoExecutionException("Multi-call launchers require the same cocoaFileHandler setting for all Cocoa launchers");
+                }
+                multiCallLauncher.cocoa = true;
+                multiCallLauncher.cocoaFileHandler = launcher.cocoaFileHandler;
+            }
         }
+        return multiCallLauncher;
+    }
 
-        return template
-                .replaceAll("\\{\\{MAIN_CLASS}}", launcher.getMainClass())
-                .replaceAll("\\{\\{NUM_JVM_ARGS}}", String.valueOf(jvmArgs.size()))
-                .replaceAll("\\{\\{JVM_ARGS}}", argString.toString())
-                .replaceAll("\\{\\{IMAGE_NAME}}", imageName)
-                .replaceAll("\\{\\{METHOD_NAME}}", entrypoint);
+    /**
+     * Creates a link to the multi-call executable for each launcher name
+     */
+    private List<String> createMultiCallLinks(Path executable) throws IOException {
+        String type = getNonNull(linkType, isWindows() ? "hardlink" : "symlink");
+        List<String> links = new ArrayList<>();
+        for (Launcher launcher : launchers) {
+            Path outputDir = Paths.get(getNonNull(launcher.outputDirectory, outputDirectory)).toAbsolutePath();
+            Files.createDirectories(outputDir);
+            Path link = outputDir.resolve(launcher.getOutputName());
+            if (link.equals(executable.toAbsolutePath())) {
+                continue;
+            }
+            links.add(link.toString());
+            if (isLinkUpToDate(type, link, executable)) {
+                printDebug("Unchanged " + type + " " + link);
+                continue;
+            }
+            Files.deleteIfExists(link);
+            switch (type) {
+                case "symlink":
+                    Files.createSymbolicLink(link, outputDir.relativize(executable.toAbsolutePath()));
+                    break;
+                case "hardlink":
+                    Files.createLink(link, executable);
+                    break;
+                case "copy":
+                    Files.copy(executable, link);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown link type: " + type + ". Expected symlink, hardlink, or copy");
+            }
+            printDebug("Created " + type + " " + link + " -> " + executable);
+            updatedFiles.add(link.toString());
+        }
+        return links;
     }
 
-    private Path compileSource(List<String> compiler, Path srcDir, Launcher launcher) throws MojoExecutionException {
+    private static boolean isLinkUpToDate(String type, Path link, Path executable) throws IOException {
+        switch (type) {
+            case "symlink":
+                return Files.isSymbolicLink(link)
+                        && Files.readSymbolicLink(link).equals(link.getParent().relativize(executable.toAbsolutePath()));
+            case "hardlink":
+                return Files.exists(link, LinkOption.NOFOLLOW_LINKS) && Files.isSameFile(link, executable);
+            case "copy":
+                return Files.isRegularFile(link, LinkOption.NOFOLLOW_LINKS)
+                        && Files.getLastModifiedTime(link).compareTo(Files.getLastModifiedTime(executable)) >= 0
+                        && Files.size(link) == Files.size(executable);
+            default:
+                return false;
+        }
+    }
+
+    private List<String> getCompileArgs(Toolchain toolchain, Launcher launcher) {
         String srcFileName = launcher.getCFileName();
         String outputName = launcher.getOutputName();
 
         // Compile the generated file
-        List<String> processArgs = new ArrayList<>(compiler);
+        List<String> processArgs = new ArrayList<>(toolchain.getCommand());
+        processArgs.addAll(toolchain.getCompileFlags(compilerProfile, getLog()));
         processArgs.addAll(compilerArgs);
         if (isWindows()) {
             processArgs.add("/Fe" + outputName);
@@ -152,24 +742,8 @@ public class GenerateNativeLaunchersMojo extends BaseConfig {
             processArgs.add(outputName);
         }
         processArgs.add(srcFileName);
-
-        // Add JNI headers from JAVA_HOME
-        Optional.ofNullable(System.getenv("JAVA_HOME"))
-                .map(Paths::get)
-                .map(javaHome -> javaHome.resolve("include"))
-                .ifPresent(includeDir -> {
-                    if (isWindows()) {
-                        processArgs.add("/I" + includeDir);
-                        processArgs.add("/I" + includeDir.resolve("win32"));
-                    } else {
-                        processArgs.add("-I" + includeDir);
-                        if (isMac()) {
-                            processArgs.add("-I" + includeDir.resolve("darwin"));
-                        } else if (isUnix()) {
-                            processArgs.add("-I" + includeDir.resolve("linux"));
-                        }
-                    }
-                });
+        processArgs.add(sharedRuntime ? getRuntimeObjectName() : RUNTIME_SOURCE);
+        addJniIncludes(processArgs);
 
         if (isMac() && launcher.enableCocoa()) {
             processArgs.add("AppDelegate.m");
@@ -183,16 +757,25 @@ public class GenerateNativeLaunchersMojo extends BaseConfig {
         if (launcher.console) processArgs.add("-DCONSOLE");
         if (debug) processArgs.add("-DDEBUG");
         if (isWindows()) {
-            launcher.getUserModelId().ifPresent(userModelId -> {
-                processArgs.add("-DAUMID=" + userModelId);
-                processArgs.add("/link");
-                processArgs.add("shell32.lib");
-            });
+            // Required for setting the user model id
+            processArgs.add("/link");
+            processArgs.add("shell32.lib");
         }
         if (isUnix()) processArgs.add("-ldl");
+        if (isLinked()) {
+            // Bind all symbols at startup rather than on first use
+            processArgs.add(LINK_STUB_DIR + "/" + getLibFileName(getImageName(launcher)));
+            processArgs.add(isMac() ? "-Wl,-bind_at_load" : "-Wl,-z,now");
+        }
+        processArgs.addAll(toolchain.getLinkFlags(compilerProfile, getLog()));
         processArgs.addAll(linkerArgs);
         processArgs.addAll(getDefaultLoadingPathOptions());
         processArgs.addAll(getConveyorOptions());
+        return processArgs;
+    }
+
+    private Path compileSource(Path srcDir, Launcher launcher, List<String> processArgs) throws MojoExecutionException {
+        String outputName = launcher.getOutputName();
         runProcess(srcDir, processArgs);
 
         // Disable the console window for non-console apps
@@ -205,6 +788,26 @@ public class GenerateNativeLaunchersMojo extends BaseConfig {
         return srcDir.resolve(outputName);
     }
 
+    private static void addJniIncludes(List<String> processArgs) {
+        // Add JNI headers from JAVA_HOME
+        Optional.ofNullable(System.getenv("JAVA_HOME"))
+                .map(Paths::get)
+                .map(javaHome -> javaHome.resolve("include"))
+                .ifPresent(includeDir -> {
+                    if (isWindows()) {
+                        processArgs.add("/I" + includeDir);
+                        processArgs.add("/I" + includeDir.resolve("win32"));
+                    } else {
+                        processArgs.add("-I" + includeDir);
+                        if (isMac()) {
+                            processArgs.add("-I" + includeDir.resolve("darwin"));
+                        } else if (isUnix()) {
+                            processArgs.add("-I" + includeDir.resolve("linux"));
+                        }
+                    }
+                });
+    }
+
     private List<String> getCompiler() throws FileNotFoundException {
         // Note: we could compile the native launchers with various compilers, but
         // due to some limitations regarding dynamic loading of libraries (zig doesn't
@@ -212,7 +815,15 @@ public class GenerateNativeLaunchersMojo extends BaseConfig {
         // on macOS, we stick to the compilers officially supported by GraalVM. Non-standard
         // options can be chosen manually via the compiler args.
         if (compiler != null && !compiler.isEmpty()) return new ArrayList<>(compiler);
-        return Collections.singletonList(getGraalDefaultCompiler());
+        if (isWindows()) return Collections.singletonList(getGraalDefaultCompiler());
+
+        // Prefer the GraalVM default, but fall back to other compilers that are available
+        List<String> candidates = new ArrayList<>(Arrays.asList(getGraalDefaultCompiler(), "cc", "gcc", "clang"));
+        String builtinClang = getBuiltinClang();
+        if (!builtinClang.isEmpty() && Files.isExecutable(Paths.get(builtinClang))) {
+            candidates.add(builtinClang);
+        }
+        return Collections.singletonList(findCompilerOnPath(candidates));
     }
 
     private static String getGraalDefaultCompiler() {
@@ -253,6 +864,8 @@ public class GenerateNativeLaunchersMojo extends BaseConfig {
     }
 
     private void runProcess(Path directory, List<String> rawArgs) throws MojoExecutionException {
+        // Buffer the output so that concurrent invocations don't interleave
+        StringBuffer output = new StringBuffer();
         try {
             List<String> args = escapeArgs(rawArgs);
             printDebug(String.join(" ", args));
@@ -260,16 +873,28 @@ public class GenerateNativeLaunchersMojo extends BaseConfig {
             cli.setWorkingDirectory(directory.toFile());
             cli.addArguments(args.toArray(new String[0]));
             int returnCode = CommandLineUtils.executeCommandLine(cli,
-                    System.out::println,
-                    System.err::println);
+                    line -> output.append(line).append(System.lineSeparator()),
+                    line -> output.append(line).append(System.lineSeparator()));
             if (returnCode != 0) {
+                logOutput(output, true);
                 throw new MojoExecutionException("Compiler returned error code " + returnCode + ". Args:\n" + String.join(" ", args));
             }
+            logOutput(output, false);
         } catch (CommandLineException ex) {
             throw new MojoExecutionException(ex);
         }
     }
 
+    private void logOutput(CharSequence output, boolean isError) {
+        if (output.length() == 0) return;
+        String text = output.toString().trim();
+        if (isError) {
+            getLog().error(text);
+        } else {
+            getLog().info(text);
+        }
+    }
+
     private static List<String> escapeArgs(List<String> args) {
         if (!isWindows()) {
             return args;
@@ -339,44 +964,176 @@ public class GenerateNativeLaunchersMojo extends BaseConfig {
     }
 
     /**
-     * Generates a GraalVM config file that makes sure that all required classes can be
-     * accessed from the JNI launchers
+     * The isolate of a @CEntryPoint only parses runtime options, and the generated stubs
+     * set the system properties. Anything else would need the JNI invocation API.
      */
-    private Path generateJniConfig(Path targetDir) throws IOException {
-        Files.createDirectories(targetDir);
+    private void checkEntryPointOptions() throws MojoExecutionException {
+        for (Launcher launcher : launchers) {
+            for (String option : getJvmArgs(launcher)) {
+                if (!isEntryPointOption(option)) {
+                    throw new MojoExecutionException("Launcher " + launcher.getName() + ": option '" + option
+                            + "' is not supported by entryPoint=cEntryPoint. Only system properties (-D) and"
+                            + " runtime options (-Xmx, -Xms, -Xmn, -Xss, -XX:) can be passed to an isolate.");
+                }
+            }
+        }
+    }
 
-        Set<String> processedClasses = new HashSet<>();
-        StringBuilder jniConfig = new StringBuilder();
-        jniConfig.append("[\n");
-        boolean needsComma = false;
+    /**
+     * The library names on Windows are wide string literals, which can't contain the UTF-8
+     * escapes of non-ASCII characters
+     */
+    private void checkImageNames() throws MojoExecutionException {
+        for (Launcher launcher : launchers) {
+            String imageName = getImageName(launcher);
+            if (!imageName.chars().allMatch(c -> c < 0x80)) {
+                throw new MojoExecutionException("Launcher " + launcher.getName() + ": imageName '" + imageName
+                        + "' needs to be ASCII on Windows");
+            }
+        }
+    }
+
+    static boolean isEntryPointOption(String option) {
+        for (String prefix : ENTRY_POINT_OPTION_PREFIXES) {
+            if (option.startsWith(prefix)) return true;
+        }
+        return false;
+    }
+
+    private static final String[] ENTRY_POINT_OPTION_PREFIXES = {"-D", "-Xmx", "-Xms", "-Xmn", "-Xss", "-XX:"};
 
+    /**
+     * Generates a Java class with a @CEntryPoint for each launcher next to the main class. The
+     * entry points receive the raw arguments, so the launchers don't need JNI or reflection
+     * metadata. Requires the GraalVM SDK as a compile dependency.
+     */
+    private void generateEntryPoints(Path javaDir) throws IOException {
+        ClassName cEntryPoint = ClassName.get("org.graalvm.nativeimage.c.function", "CEntryPoint");
+        ClassName isolateThread = ClassName.get("org.graalvm.nativeimage", "IsolateThread");
+        ClassName charPointerPointer = ClassName.get("org.graalvm.nativeimage.c.type", "CCharPointerPointer");
+        ClassName typeConversion = ClassName.get("org.graalvm.nativeimage.c.type", "CTypeConversion");
+
+        // Group by main class, so that each class gets generated only once
+        Map<String, Map<String, Launcher>> entryPoints = new TreeMap<>();
         for (Launcher launcher : launchers) {
-            String mainClass = launcher.getMainClass();
+            entryPoints.computeIfAbsent(launcher.getMainClass(), key -> new TreeMap<>())
+                    .putIfAbsent(launcher.getSymbolName(), launcher);
+        }
 
-            // Only add each class once
-            if (!processedClasses.add(mainClass)) {
-                continue;
-            }
+        for (Map.Entry<String, Map<String, Launcher>> entry : entryPoints.entrySet()) {
+            ClassName mainClass = ClassName.bestGuess(entry.getKey().replace('$', '.')); // nested classes
+            TypeSpec.Builder type = TypeSpec.classBuilder(mainClass.simpleName() + "EntryPoints")
+                    .addJavadoc("Generated by the native-launchers-maven-plugin. Do not edit.\n")
+                    .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                    .addMethod(MethodSpec.methodBuilder("applyOptions")
+                            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                            .addParameter(int.class, "nOptions")
+                            .addParameter(charPointerPointer, "options")
+                            .addComment("Daemons reuse the isolate, so the environment of a previous client needs to go")
+                            .addStatement("System.getProperties().keySet().removeIf(key -> String.valueOf(key).startsWith($S))", "launcher.env.")
+                            .beginControlFlow("for (int i = 0; i < nOptions; i++)")
+                            .addStatement("String option = $T.toJavaString(options.read(i))", typeConversion)
+                            .addComment("The launcher passes runtime options to the isolate and only forwards system properties")
+                            .addStatement("int separator = option.indexOf('=')")
+                            .beginControlFlow("if (separator < 0)")
+                            .addStatement("System.setProperty(option.substring(2), \"\")")
+                            .nextControlFlow("else")
+                            .addStatement("System.setProperty(option.substring(2, separator), option.substring(separator + 1))")
+                            .endControlFlow()
+                            .endControlFlow()
+                            .build())
+                    .addMethod(MethodSpec.methodBuilder("toJavaArgs")
+                            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                            .returns(String[].class)
+                            .addParameter(int.class, "argc")
+                            .addParameter(charPointerPointer, "argv")
+                            .addComment("Java omits the program name (argv[0])")
+                            .addStatement("String[] args = new String[Math.max(0, argc - 1)]")
+                            .beginControlFlow("for (int i = 0; i < args.length; i++)")
+                            .addStatement("args[i] = $T.toJavaString(argv.read(i + 1))", typeConversion)
+                            .endControlFlow()
+                            .addStatement("return args")
+                            .build());
 
-            if (needsComma) {
-                jniConfig.append(",\n");
+            for (String symbolName : entry.getValue().keySet()) {
+                type.addMethod(MethodSpec.methodBuilder(symbolName)
+                        .addAnnotation(AnnotationSpec.builder(cEntryPoint)
+                                .addMember("name", "$S", symbolName)
+                                .build())
+                        .addModifiers(Modifier.STATIC)
+                        .returns(int.class)
+                        .addParameter(isolateThread, "thread")
+                        .addParameter(int.class, "nOptions")
+                        .addParameter(charPointerPointer, "options")
+                        .addParameter(int.class, "argc")
+                        .addParameter(charPointerPointer, "argv")
+                        .addStatement("applyOptions(nOptions, options)")
+                        .beginControlFlow("try")
+                        .addStatement("$T.main(toJavaArgs(argc, argv))", mainClass)
+                        .addStatement("return 0")
+                        .nextControlFlow("catch (Throwable t)")
+                        .addStatement("t.printStackTrace()")
+                        .addStatement("return 1")
+                        .nextControlFlow("finally")
+                        .addComment("Daemons reuse the isolate, so nothing may remain buffered")
+                        .addStatement("System.out.flush()")
+                        .addStatement("System.err.flush()")
+                        .endControlFlow()
+                        .build());
             }
-            needsComma = true;
-            jniConfig.append("  {\n");
-            jniConfig.append("    \"name\": \"").append(mainClass).append("\",\n");
-            jniConfig.append("    \"methods\": [\n");
-            jniConfig.append("      {\n");
-            jniConfig.append("        \"name\": \"main\",\n");
-            jniConfig.append("        \"parameterTypes\": [\"java.lang.String[]\"]\n");
-            jniConfig.append("      }\n");
-            jniConfig.append("    ]\n");
-            jniConfig.append("  }");
+
+            writeOutput(JavaFile.builder(mainClass.packageName(), type.build())
+                    .skipJavaLangImports(true)
+                    .indent("    ")
+                    .build(), javaDir);
+            printDebug("Generated @CEntryPoint stubs for " + mainClass);
         }
+    }
 
-        jniConfig.append("\n]");
+    /**
+     * Generates a class that decodes all arguments from a single buffer of null-terminated
+     * UTF-8 strings, so that huge argument lists don't require a JNI call per argument.
+     */
+    void generateArgsDecoder(Path javaDir) throws IOException {
+        ClassName decoder = ClassName.bestGuess(getArgsDecoderClass());
+        TypeSpec type = TypeSpec.classBuilder(decoder.simpleName())
+                .addJavadoc("Generated by the native-launchers-maven-plugin. Do not edit.\n")
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                .addMethod(MethodSpec.methodBuilder("decode")
+                        .addJavadoc("Called from the native launchers via JNI\n")
+                        .addModifiers(Modifier.STATIC)
+                        .returns(String[].class)
+                        .addParameter(ByteBuffer.class, "buffer")
+                        .addParameter(int.class, "count")
+                        .addStatement("byte[] bytes = new byte[buffer.remaining()]")
+                        .addStatement("buffer.get(bytes)")
+                        .addStatement("String[] args = new String[count]")
+                        .addStatement("int start = 0")
+                        .beginControlFlow("for (int i = 0, end = 0; i < count; end++)")
+                        .beginControlFlow("if (bytes[end] == 0)")
+                        .addStatement("args[i++] = new String(bytes, start, end - start, $T.UTF_8)", StandardCharsets.class)
+                        .addStatement("start = end + 1")
+                        .endControlFlow()
+                        .endControlFlow()
+                        .addStatement("return args")
+                        .build())
+                .build();
+        writeOutput(JavaFile.builder(decoder.packageName(), type)
+                .skipJavaLangImports(true)
+                .indent("    ")
+                .build(), javaDir);
+    }
 
+    /**
+     * Generates a GraalVM config file that makes sure that all required classes can be
+     * accessed from the JNI launchers
+     */
+    private Path generateJniConfig(Path targetDir) throws IOException {
+        Files.createDirectories(targetDir);
         Path configFile = targetDir.resolve("jni-config.json");
-        Files.write(configFile, jniConfig.toString().getBytes(StandardCharsets.UTF_8));
+        if (!writeOutput(toJniConfig(), targetDir, configFile.getFileName().toString())) {
+            return configFile;
+        }
 
         StringBuilder msg = new StringBuilder("Generated JNI config in ").append(configFile).append(":");
         for (Launcher launcher : launchers) {
@@ -387,4 +1144,54 @@ public class GenerateNativeLaunchersMojo extends BaseConfig {
         return configFile;
     }
 
+    String toJniConfig() {
+        JsonWriter json = new JsonWriter(new StringBuilder(256 + 160 * launchers.size()));
+        json.beginArray();
+
+        // Only add each class once
+        Set<String> processedClasses = new HashSet<>();
+        for (Launcher launcher : launchers) {
+            if (processedClasses.add(launcher.getMainClass())) {
+                writeJniClass(json, launcher.getMainClass(), "main", "java.lang.String[]");
+            }
+        }
+
+        // Used for exposing startup timings as system properties and for daemon requests
+        json.beginObject()
+                .name("name").value("java.lang.System")
+                .name("methods").beginArray();
+        writeJniMethod(json, "setProperty", "java.lang.String", "java.lang.String");
+        json.endArray()
+                .name("fields").beginArray();
+        for (String field : Arrays.asList("out", "err")) {
+            json.beginObject().name("name").value(field).endObject();
+        }
+        json.endArray().endObject();
+
+        // Used for passing huge argument lists in a single call
+        if (getBulkArgsThreshold() > 0) {
+            writeJniClass(json, getArgsDecoderClass(), "decode", "java.nio.ByteBuffer", "int");
+        }
+
+        // Used for flushing the output streams after each daemon request and before halting
+        writeJniClass(json, "java.io.PrintStream", "flush");
+
+        return json.endArray().toString();
+    }
+
+    private static void writeJniClass(JsonWriter json, String className, String method, String... parameterTypes) {
+        json.beginObject()
+                .name("name").value(className)
+                .name("methods").beginArray();
+        writeJniMethod(json, method, parameterTypes);
+        json.endArray().endObject();
+    }
+
+    private static void writeJniMethod(JsonWriter json, String method, String... parameterTypes) {
+        json.beginObject()
+                .name("name").value(method)
+                .name("parameterTypes").values(Arrays.asList(parameterTypes))
+                .endObject();
+    }
+
 }
@@ -0,0 +1,204 @@
+/*-
+ * #%L
+ * Native Launchers Plugin
+ * %%
+ * Copyright (C) 2023 - 2026 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.launchers;
+
+import java.util.Arrays;
+
+/**
+ * Streaming writer for pretty-printed JSON with two spaces of indentation. Values get
+ * appended directly without building a document tree first, and strings get escaped.
+ * Arrays of plain values stay on a single line, e.g., "parameterTypes": ["int"].
+ *
+ * @since 17 Oct 2026
+ */
+class JsonWriter {
+
+    JsonWriter(StringBuilder output) {
+        this.output = output;
+    }
+
+    JsonWriter() {
+        this(new StringBuilder(256));
+    }
+
+    JsonWriter beginObject() {
+        beforeValue();
+        output.append('{');
+        push(false);
+        return this;
+    }
+
+    JsonWriter endObject() {
+        return close('}');
+    }
+
+    JsonWriter beginArray() {
+        beforeValue();
+        output.append('[');
+        push(false);
+        return this;
+    }
+
+    /**
+     * Starts an array that keeps all of its values on the same line
+     */
+    JsonWriter beginInlineArray() {
+        beforeValue();
+        output.append('[');
+        push(true);
+        return this;
+    }
+
+    JsonWriter endArray() {
+        return close(']');
+    }
+
+    JsonWriter name(String name) {
+        beforeValue();
+        appendString(name);
+        output.append(": ");
+        pendingName = true;
+        return this;
+    }
+
+    JsonWriter value(String value) {
+        beforeValue();
+        if (value == null) {
+            output.append("null");
+        } else {
+            appendString(value);
+        }
+        return this;
+    }
+
+    JsonWriter value(long value) {
+        beforeValue();
+        output.append(value);
+        return this;
+    }
+
+    /**
+     * Writes a number or other value that is already valid JSON
+     */
+    JsonWriter rawValue(String json) {
+        beforeValue();
+        output.append(json);
+        return this;
+    }
+
+    JsonWriter values(Iterable<?> values) {
+        beginInlineArray();
+        for (Object value : values) {
+            value(String.valueOf(value));
+        }
+        return endArray();
+    }
+
+    @Override
+    public String toString() {
+        return output.toString();
+    }
+
+    private void beforeValue() {
+        if (pendingName) {
+            pendingName = false;
+            return;
+        }
+        if (depth == 0) return;
+        if (hasElements[depth]) {
+            output.append(',');
+        }
+        hasElements[depth] = true;
+        if (inline[depth]) {
+            if (output.charAt(output.length() - 1) != '[') output.append(' ');
+        } else {
+            newLine(depth);
+        }
+    }
+
+    private void push(boolean inlineScope) {
+        if (++depth == inline.length) {
+            inline = Arrays.copyOf(inline, depth * 2);
+            hasElements = Arrays.copyOf(hasElements, depth * 2);
+        }
+        inline[depth] = inlineScope;
+        hasElements[depth] = false;
+    }
+
+    private JsonWriter close(char bracket) {
+        if (depth == 0) throw new IllegalStateException("Nothing to close");
+        boolean wasEmpty = !hasElements[depth];
+        boolean wasInline = inline[depth];
+        depth--;
+        if (!wasEmpty && !wasInline) {
+            newLine(depth);
+        }
+        output.append(bracket);
+        return this;
+    }
+
+    private void newLine(int indent) {
+        output.append('\n');
+        for (int i = 0; i < indent; i++) {
+            output.append("  ");
+        }
+    }
+
+    private void appendString(String value) {
+        output.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    output.append("\\\"");
+                    break;
+                case '\\':
+                    output.append("\\\\");
+                    break;
+                case '\n':
+                    output.append("\\n");
+                    break;
+                case '\r':
+                    output.append("\\r");
+                    break;
+                case '\t':
+                    output.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        output.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                    } else {
+                        output.append(c);
+                    }
+            }
+        }
+        output.append('"');
+    }
+
+    private final StringBuilder output;
+    private boolean[] inline = new boolean[8];
+    private boolean[] hasElements = new boolean[8];
+    private int depth = 0;
+    private boolean pendingName = false;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+}
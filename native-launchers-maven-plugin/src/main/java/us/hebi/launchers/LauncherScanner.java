@@ -0,0 +1,390 @@
+/*-
+ * #%L
+ * Native Launchers Plugin
+ * %%
+ * Copyright (C) 2023 - 2026 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.launchers;
+
+import us.hebi.launchers.BaseConfig.Launcher;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Finds main classes on a classpath that are either marked with an annotation or listed in a
+ * META-INF/native-launchers file. Class files get checked by reading the constant pool directly
+ * rather than loading them, and all class files of all classpath entries get processed in parallel.
+ * Classes that don't reference the annotation get rejected without parsing past the constant pool.
+ *
+ * @since 17 Oct 2026
+ */
+class LauncherScanner {
+
+    LauncherScanner(String annotation) {
+        this.annotationDescriptor = annotation == null ? null
+                : ("L" + annotation.trim().replace('.', '/') + ";").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns a launcher for each discovered main class in classpath order
+     */
+    List<Launcher> scan(List<Path> classpath) throws IOException {
+        List<ZipFile> jars = new ArrayList<>();
+        try {
+            List<ClassEntry> classes = new ArrayList<>();
+            List<Launcher> listed = new ArrayList<>();
+            for (Path root : classpath) {
+                if (Files.isDirectory(root)) {
+                    Path services = root.resolve(SERVICES_FILE);
+                    if (Files.isRegularFile(services)) {
+                        listed.addAll(parseServicesFile(Files.newInputStream(services)));
+                    }
+                    if (annotationDescriptor != null) {
+                        try (Stream<Path> files = Files.walk(root)) {
+                            files.filter(file -> isClassFile(root.relativize(file).toString().replace(File.separatorChar, '/')))
+                                    .forEach(file -> classes.add(() -> Files.readAllBytes(file)));
+                        }
+                    }
+                } else if (Files.isRegularFile(root) && root.toString().endsWith(".jar")) {
+                    ZipFile jar = new ZipFile(root.toFile());
+                    jars.add(jar);
+                    ZipEntry services = jar.getEntry(SERVICES_FILE);
+                    if (services != null) {
+                        listed.addAll(parseServicesFile(jar.getInputStream(services)));
+                    }
+                    if (annotationDescriptor != null) {
+                        for (Enumeration<? extends ZipEntry> entries = jar.entries(); entries.hasMoreElements(); ) {
+                            ZipEntry entry = entries.nextElement();
+                            if (isClassFile(entry.getName())) {
+                                classes.add(() -> readFully(jar, entry));
+                            }
+                        }
+                    }
+                }
+            }
+            numScannedClasses = classes.size();
+
+            // ZipFile is thread-safe, so entries of the same jar can be inflated concurrently
+            List<Launcher> annotated = classes.parallelStream()
+                    .map(this::parseClass)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+
+            // The first occurrence of each main class wins
+            Map<String, Launcher> launchers = new LinkedHashMap<>();
+            for (Launcher launcher : listed) {
+                launchers.putIfAbsent(launcher.mainClass, launcher);
+            }
+            for (Launcher launcher : annotated) {
+                launchers.putIfAbsent(launcher.mainClass, launcher);
+            }
+            return new ArrayList<>(launchers.values());
+
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        } finally {
+            for (ZipFile jar : jars) {
+                jar.close();
+            }
+        }
+    }
+
+    int getNumScannedClasses() {
+        return numScannedClasses;
+    }
+
+    private static boolean isClassFile(String path) {
+        return path.endsWith(".class") && !path.startsWith("META-INF/") && !path.endsWith("module-info.class");
+    }
+
+    /**
+     * One main class per line, optionally prefixed with the launcher name, e.g., 'hello=com.example.Hello'
+     */
+    private static List<Launcher> parseServicesFile(InputStream input) throws IOException {
+        List<Launcher> launchers = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int comment = line.indexOf('#');
+                line = (comment >= 0 ? line.substring(0, comment) : line).trim();
+                if (line.isEmpty()) continue;
+                int separator = line.indexOf('=');
+                String mainClass = line.substring(separator + 1).trim();
+                String name = separator > 0 ? line.substring(0, separator).trim() : null;
+                launchers.add(newLauncher(name, mainClass));
+            }
+        }
+        return launchers;
+    }
+
+    private Launcher parseClass(ClassEntry entry) {
+        try {
+            return parseClass(ByteBuffer.wrap(entry.read()));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } catch (RuntimeException ex) {
+            return null; // malformed or unsupported class file
+        }
+    }
+
+    private Launcher parseClass(ByteBuffer buf) {
+        if (buf.getInt() != 0xCAFEBABE) {
+            return null;
+        }
+        buf.getInt(); // minor and major version
+
+        // Read the constant pool and remember where each utf8 entry is located
+        int poolSize = Short.toUnsignedInt(buf.getShort());
+        int[] utf8Offsets = new int[poolSize];
+        int[] classNameIndices = new int[poolSize];
+        boolean referencesAnnotation = false;
+        for (int i = 1; i < poolSize; i++) {
+            int tag = buf.get();
+            switch (tag) {
+                case CONSTANT_Utf8:
+                    int length = Short.toUnsignedInt(buf.getShort());
+                    utf8Offsets[i] = buf.position() - 2;
+                    referencesAnnotation |= equalsUtf8(buf, buf.position(), length, annotationDescriptor);
+                    buf.position(buf.position() + length);
+                    break;
+                case CONSTANT_Class:
+                    classNameIndices[i] = Short.toUnsignedInt(buf.getShort());
+                    break;
+                case CONSTANT_String:
+                case CONSTANT_MethodType:
+                case CONSTANT_Module:
+                case CONSTANT_Package:
+                    buf.position(buf.position() + 2);
+                    break;
+                case CONSTANT_MethodHandle:
+                    buf.position(buf.position() + 3);
+                    break;
+                case CONSTANT_Integer:
+                case CONSTANT_Float:
+                case CONSTANT_Fieldref:
+                case CONSTANT_Methodref:
+                case CONSTANT_InterfaceMethodref:
+                case CONSTANT_NameAndType:
+                case CONSTANT_Dynamic:
+                case CONSTANT_InvokeDynamic:
+                    buf.position(buf.position() + 4);
+                    break;
+                case CONSTANT_Long:
+                case CONSTANT_Double:
+                    buf.position(buf.position() + 8);
+                    i++; // takes two slots
+                    break;
+                default:
+                    return null;
+            }
+        }
+        if (!referencesAnnotation) {
+            return null;
+        }
+
+        buf.getShort(); // access flags
+        String className = readUtf8(buf, utf8Offsets[classNameIndices[Short.toUnsignedInt(buf.getShort())]]);
+        buf.getShort(); // super class
+        int numInterfaces = Short.toUnsignedInt(buf.getShort());
+        buf.position(buf.position() + 2 * numInterfaces);
+        skipMembers(buf); // fields
+
+        // Look for 'public static void main(String[])'
+        boolean hasMain = false;
+        int numMethods = Short.toUnsignedInt(buf.getShort());
+        for (int i = 0; i < numMethods; i++) {
+            int access = Short.toUnsignedInt(buf.getShort());
+            int name = Short.toUnsignedInt(buf.getShort());
+            int descriptor = Short.toUnsignedInt(buf.getShort());
+            hasMain |= (access & (ACC_PUBLIC | ACC_STATIC)) == (ACC_PUBLIC | ACC_STATIC)
+                    && "main".equals(readUtf8(buf, utf8Offsets[name]))
+                    && "([Ljava/lang/String;)V".equals(readUtf8(buf, utf8Offsets[descriptor]));
+            skipAttributes(buf);
+        }
+        if (!hasMain) {
+            return null;
+        }
+
+        // Check that the annotation is actually on the class rather than a member
+        int numAttributes = Short.toUnsignedInt(buf.getShort());
+        for (int i = 0; i < numAttributes; i++) {
+            String attribute = readUtf8(buf, utf8Offsets[Short.toUnsignedInt(buf.getShort())]);
+            int length = buf.getInt();
+            int end = buf.position() + length;
+            if ("RuntimeVisibleAnnotations".equals(attribute) || "RuntimeInvisibleAnnotations".equals(attribute)) {
+                int numAnnotations = Short.toUnsignedInt(buf.getShort());
+                for (int j = 0; j < numAnnotations; j++) {
+                    int typeOffset = utf8Offsets[Short.toUnsignedInt(buf.getShort())];
+                    boolean isMarker = equalsUtf8(buf, typeOffset + 2, Short.toUnsignedInt(buf.getShort(typeOffset)), annotationDescriptor);
+                    String name = null;
+                    int numPairs = Short.toUnsignedInt(buf.getShort());
+                    for (int k = 0; k < numPairs; k++) {
+                        String element = readUtf8(buf, utf8Offsets[Short.toUnsignedInt(buf.getShort())]);
+                        if (isMarker && "name".equals(element) && buf.get(buf.position()) == 's') {
+                            buf.get();
+                            name = readUtf8(buf, utf8Offsets[Short.toUnsignedInt(buf.getShort())]);
+                        } else {
+                            skipElementValue(buf);
+                        }
+                    }
+                    if (isMarker) {
+                        return newLauncher(name, className.replace('/', '.'));
+                    }
+                }
+            }
+            buf.position(end);
+        }
+        return null;
+    }
+
+    private static void skipMembers(ByteBuffer buf) {
+        int count = Short.toUnsignedInt(buf.getShort());
+        for (int i = 0; i < count; i++) {
+            buf.position(buf.position() + 6); // access, name, descriptor
+            skipAttributes(buf);
+        }
+    }
+
+    private static void skipAttributes(ByteBuffer buf) {
+        int count = Short.toUnsignedInt(buf.getShort());
+        for (int i = 0; i < count; i++) {
+            buf.getShort(); // name
+            int length = buf.getInt();
+            buf.position(buf.position() + length);
+        }
+    }
+
+    private static void skipElementValue(ByteBuffer buf) {
+        int tag = buf.get();
+        switch (tag) {
+            case 'e':
+                buf.position(buf.position() + 4);
+                break;
+            case '@':
+                buf.getShort(); // type
+                int numPairs = Short.toUnsignedInt(buf.getShort());
+                for (int i = 0; i < numPairs; i++) {
+                    buf.getShort(); // name
+                    skipElementValue(buf);
+                }
+                break;
+            case '[':
+                int numValues = Short.toUnsignedInt(buf.getShort());
+                for (int i = 0; i < numValues; i++) {
+                    skipElementValue(buf);
+                }
+                break;
+            default:
+                buf.position(buf.position() + 2); // constant or class index
+                break;
+        }
+    }
+
+    private static boolean equalsUtf8(ByteBuffer buf, int offset, int length, byte[] expected) {
+        if (expected == null || length != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buf.get(offset + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String readUtf8(ByteBuffer buf, int offset) {
+        // Modified UTF-8 only differs for NUL and supplementary characters
+        int length = Short.toUnsignedInt(buf.getShort(offset));
+        return new String(buf.array(), buf.arrayOffset() + offset + 2, length, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readFully(ZipFile jar, ZipEntry entry) throws IOException {
+        try (InputStream input = jar.getInputStream(entry)) {
+            if (entry.getSize() < 0) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                for (int n; (n = input.read(buffer)) != -1; ) {
+                    bytes.write(buffer, 0, n);
+                }
+                return bytes.toByteArray();
+            }
+            // Avoid copies for the common case of a known size
+            byte[] bytes = new byte[(int) entry.getSize()];
+            int offset = 0;
+            for (int n; offset < bytes.length && (n = input.read(bytes, offset, bytes.length - offset)) != -1; ) {
+                offset += n;
+            }
+            return offset == bytes.length ? bytes : Arrays.copyOf(bytes, offset);
+        }
+    }
+
+    private static Launcher newLauncher(String name, String mainClass) {
+        Launcher launcher = new Launcher();
+        launcher.mainClass = mainClass;
+        launcher.name = Utils.isNullOrEmpty(name) ? deriveName(mainClass) : name;
+        return launcher;
+    }
+
+    /**
+     * Converts the simple class name to kebab case, e.g., 'com.example.HTTPServerTool' to 'http-server-tool'
+     */
+    static String deriveName(String mainClass) {
+        String simpleName = mainClass.substring(Math.max(mainClass.lastIndexOf('.'), mainClass.lastIndexOf('$')) + 1);
+        return simpleName
+                .replaceAll("([a-z0-9])([A-Z])", "$1-$2")
+                .replaceAll("([A-Z])([A-Z][a-z])", "$1-$2")
+                .toLowerCase(Locale.US);
+    }
+
+    interface ClassEntry {
+        byte[] read() throws IOException;
+    }
+
+    private final byte[] annotationDescriptor;
+    private int numScannedClasses = 0;
+
+    static final String SERVICES_FILE = "META-INF/native-launchers";
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int CONSTANT_Utf8 = 1;
+    private static final int CONSTANT_Integer = 3;
+    private static final int CONSTANT_Float = 4;
+    private static final int CONSTANT_Long = 5;
+    private static final int CONSTANT_Double = 6;
+    private static final int CONSTANT_Class = 7;
+    private static final int CONSTANT_String = 8;
+    private static final int CONSTANT_Fieldref = 9;
+    private static final int CONSTANT_Methodref = 10;
+    private static final int CONSTANT_InterfaceMethodref = 11;
+    private static final int CONSTANT_NameAndType = 12;
+    private static final int CONSTANT_MethodHandle = 15;
+    private static final int CONSTANT_MethodType = 16;
+    private static final int CONSTANT_Dynamic = 17;
+    private static final int CONSTANT_InvokeDynamic = 18;
+    private static final int CONSTANT_Module = 19;
+    private static final int CONSTANT_Package = 20;
+
+}
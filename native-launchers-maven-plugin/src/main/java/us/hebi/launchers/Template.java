@@ -0,0 +1,191 @@
+/*-
+ * #%L
+ * Native Launchers Plugin
+ * %%
+ * Copyright (C) 2023 - 2026 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.launchers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Source template with {{NAME}} placeholders that gets split into literal and placeholder
+ * segments once, so that filling it for each launcher is a single pass without any regex
+ * matching. A placeholder that is alone on its line removes the whole line if its value
+ * is empty. Templates are immutable and cached per resource.
+ *
+ * @since 17 Oct 2026
+ */
+class Template {
+
+    static Template load(String name) throws IOException {
+        try {
+            return CACHE.computeIfAbsent(name, key -> {
+                try {
+                    return new Template(Utils.loadResourceAsString(BaseConfig.class, "templates/" + key));
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    Template(String text) {
+        this.text = text;
+        List<String> literals = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        List<Boolean> standalone = new ArrayList<>();
+        int position = 0;
+        int start;
+        while ((start = text.indexOf(OPEN, position)) >= 0) {
+            int end = text.indexOf(CLOSE, start + OPEN.length());
+            if (end < 0) break;
+            literals.add(text.substring(position, start));
+            keys.add(text.substring(start + OPEN.length(), end));
+            position = end + CLOSE.length();
+            standalone.add((start == 0 || text.charAt(start - 1) == '\n')
+                    && position < text.length() && text.charAt(position) == '\n');
+        }
+        literals.add(text.substring(position));
+        this.literals = literals.toArray(new String[0]);
+        this.keys = keys.toArray(new String[0]);
+        this.standalone = new boolean[keys.size()];
+        for (int i = 0; i < keys.size(); i++) {
+            this.standalone[i] = standalone.get(i);
+        }
+    }
+
+    /**
+     * @param values replacement for each placeholder. Missing values are an error, so that
+     *               changes to the templates can't silently produce broken sources.
+     */
+    String fill(Map<String, String> values) {
+        int length = text.length();
+        for (String key : keys) {
+            String value = values.get(key);
+            if (value == null) {
+                throw new IllegalArgumentException("No value for template placeholder {{" + key + "}}");
+            }
+            length += value.length();
+        }
+        StringBuilder builder = new StringBuilder(length);
+        builder.append(literals[0]);
+        for (int i = 0; i < keys.length; i++) {
+            String value = values.get(keys[i]);
+            String literal = literals[i + 1];
+            builder.append(value);
+            builder.append(literal, standalone[i] && value.isEmpty() ? 1 : 0, literal.length());
+        }
+        return builder.toString();
+    }
+
+    String getText() {
+        return text;
+    }
+
+    /**
+     * Escapes a value for use inside a narrow C string literal. Non-ASCII characters become
+     * octal escapes of their UTF-8 bytes, so that the literal has the same bytes regardless of
+     * the source and execution character sets of the compiler (e.g. MSVC maps universal character
+     * names to the ANSI code page). Unpaired surrogates get replaced with U+FFFD. Wide literals
+     * would get one character per byte, so they can only contain ASCII values.
+     */
+    static String escapeC(String value) {
+        StringBuilder builder = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c < 0x7F && c != '"' && c != '\\' && c != '?') {
+                if (builder != null) builder.append(c);
+                continue;
+            }
+            if (builder == null) {
+                builder = new StringBuilder(value.length() + 16).append(value, 0, i);
+            }
+            switch (c) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '?': // avoids trigraphs
+                    builder.append("\\?");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (c < 0x80) {
+                        appendOctal(builder, c);
+                    } else {
+                        int codePoint = value.codePointAt(i);
+                        if (Character.isSupplementaryCodePoint(codePoint)) {
+                            i++;
+                        } else if (Character.isSurrogate(c)) {
+                            codePoint = 0xFFFD;
+                        }
+                        for (byte b : new String(Character.toChars(codePoint)).getBytes(StandardCharsets.UTF_8)) {
+                            appendOctal(builder, b & 0xFF);
+                        }
+                    }
+            }
+        }
+        return builder == null ? value : builder.toString();
+    }
+
+    private static void appendOctal(StringBuilder builder, int value) {
+        // octal escapes don't consume following digits after three characters
+        builder.append('\\')
+                .append((char) ('0' + ((value >> 6) & 7)))
+                .append((char) ('0' + ((value >> 3) & 7)))
+                .append((char) ('0' + (value & 7)));
+    }
+
+    /**
+     * @return a quoted C string literal
+     */
+    static String toCString(String value) {
+        return "\"" + escapeC(value) + "\"";
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    private final String text;
+    private final String[] literals;
+    private final String[] keys;
+    private final boolean[] standalone;
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+    private static final Map<String, Template> CACHE = new ConcurrentHashMap<>();
+
+}
@@ -0,0 +1,209 @@
+/*-
+ * #%L
+ * Native Launchers Plugin
+ * %%
+ * Copyright (C) 2023 - 2026 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.launchers;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.util.cli.CommandLineException;
+import org.codehaus.plexus.util.cli.CommandLineUtils;
+import org.codehaus.plexus.util.cli.Commandline;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static us.hebi.launchers.Utils.*;
+
+/**
+ * A C compiler and the optimization flags that it supports. Support for each flag gets
+ * detected by compiling a trivial program, and the results are cached for the lifetime
+ * of the JVM, so every toolchain only gets probed once per build. The version banner is
+ * cached per compiler executable and gets refreshed when the executable changes.
+ *
+ * @since 17 Oct 2026
+ */
+class Toolchain {
+
+    static Toolchain probe(List<String> command, Path workDir, Log log) {
+        String commandKey = String.join("\0", command) + "\0" + getLastModified(command.get(0));
+        String version = VERSIONS.computeIfAbsent(commandKey, k -> getVersion(command, workDir, log));
+        String key = String.join("\0", command) + "\0" + version;
+        return CACHE.computeIfAbsent(key, k -> new Toolchain(command, version));
+    }
+
+    private Toolchain(List<String> command, String version) {
+        this.command = Collections.unmodifiableList(new ArrayList<>(command));
+        this.version = version;
+        String name = command.get(0).toLowerCase(Locale.US);
+        this.msvc = name.endsWith("cl") || name.endsWith("cl.exe");
+    }
+
+    public List<String> getCommand() {
+        return command;
+    }
+
+    /**
+     * The version banner of the compiler, so that switching toolchains invalidates
+     * previously compiled launchers.
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Flags for compiling sources. These come before the user compiler args, so they can be overridden.
+     */
+    public List<String> getCompileFlags(String profile, Log log) {
+        switch (profile) {
+            case "none":
+                return Collections.emptyList();
+            case "startup":
+                return msvc ? Arrays.asList("/O2", "/Gy")
+                        : getSupported(log, "-O2", "-flto", "-ffunction-sections", "-fdata-sections");
+            case "size":
+                return msvc ? Arrays.asList("/O1", "/Gy")
+                        : getSupported(log, "-Os", "-flto", "-ffunction-sections", "-fdata-sections");
+            case "debug":
+                return msvc ? Arrays.asList("/Od", "/Zi")
+                        : getSupported(log, "-O0", "-g", "-fno-omit-frame-pointer");
+            default:
+                throw new IllegalArgumentException("Unknown compiler profile: " + profile + ". Expected none, startup, size, or debug");
+        }
+    }
+
+    /**
+     * Flags for linking executables. Removes unused sections and symbols and keeps
+     * the number of relocations low, so that fewer pages get touched on startup.
+     */
+    public List<String> getLinkFlags(String profile, Log log) {
+        switch (profile) {
+            case "none":
+            case "debug":
+                return Collections.emptyList();
+            case "startup":
+            case "size":
+                if (msvc) {
+                    return Arrays.asList("/OPT:REF", "/OPT:ICF");
+                } else if (isMac()) {
+                    return getSupported(log, "-Wl,-dead_strip", "-Wl,-x");
+                }
+                return getSupported(log, "-Wl,--gc-sections", "-Wl,--hash-style=gnu", "-Wl,-O1", "-s");
+            default:
+                throw new IllegalArgumentException("Unknown compiler profile: " + profile + ". Expected none, startup, size, or debug");
+        }
+    }
+
+    private List<String> getSupported(Log log, String... flags) {
+        return Arrays.stream(flags)
+                .filter(flag -> supportedFlags.computeIfAbsent(flag, key -> isSupported(key, log)))
+                .collect(Collectors.toList());
+    }
+
+    private boolean isSupported(String flag, Log log) {
+        Path probeDir = null;
+        try {
+            probeDir = Files.createTempDirectory("native-launchers-probe");
+            Files.write(probeDir.resolve("probe.c"), "int main(void) { return 0; }\n".getBytes(StandardCharsets.UTF_8));
+            List<String> args = new ArrayList<>(command);
+            args.addAll(Arrays.asList("-Werror", flag, "-o", "probe", "probe.c"));
+            boolean supported = execute(args, probeDir, new StringBuffer()) == 0;
+            log.debug("Compiler flag " + flag + (supported ? " is supported" : " is not supported"));
+            return supported;
+        } catch (IOException | CommandLineException ex) {
+            log.debug("Could not probe compiler flag " + flag + ": " + ex.getMessage());
+            return false;
+        } finally {
+            deleteRecursively(probeDir);
+        }
+    }
+
+    private static String getVersion(List<String> command, Path workDir, Log log) {
+        // MSVC prints its version when called without arguments
+        List<String> args = new ArrayList<>(command);
+        if (!isWindows()) {
+            args.add("--version");
+        }
+        StringBuffer output = new StringBuffer();
+        try {
+            execute(args, workDir, output);
+        } catch (CommandLineException ex) {
+            log.debug("Could not determine compiler version: " + ex.getMessage());
+        }
+        return output.toString();
+    }
+
+    /**
+     * Modification time of the compiler executable, or 0 if it can't be found on the PATH
+     */
+    private static long getLastModified(String executable) {
+        Path path = Paths.get(executable);
+        if (path.getNameCount() == 1 && !path.isAbsolute()) {
+            String systemPath = System.getenv("PATH");
+            path = null;
+            for (String dir : systemPath == null ? new String[0] : systemPath.split(File.pathSeparator)) {
+                for (String suffix : isWindows() ? new String[]{"", ".exe", ".cmd", ".bat"} : new String[]{""}) {
+                    Path candidate = Paths.get(dir, executable + suffix);
+                    if (Files.isRegularFile(candidate)) {
+                        path = candidate;
+                        break;
+                    }
+                }
+                if (path != null) break;
+            }
+        }
+        try {
+            return path == null ? 0 : Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException ex) {
+            return 0;
+        }
+    }
+
+    private static int execute(List<String> args, Path workDir, StringBuffer output) throws CommandLineException {
+        Commandline cli = new Commandline();
+        cli.setWorkingDirectory(workDir.toFile());
+        cli.addArguments(args.toArray(new String[0]));
+        return CommandLineUtils.executeCommandLine(cli,
+                line -> output.append(line).append('\n'),
+                line -> output.append(line).append('\n'));
+    }
+
+    private static void deleteRecursively(Path dir) {
+        if (dir == null) return;
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static final Map<String, String> VERSIONS = new ConcurrentHashMap<>();
+    private static final Map<String, Toolchain> CACHE = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> supportedFlags = new ConcurrentHashMap<>();
+    private final List<String> command;
+    private final String version;
+    private final boolean msvc;
+
+}
@@ -28,6 +28,9 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.Locale;
 import java.util.stream.Collectors;
 
@@ -41,12 +44,24 @@ class Utils {
         return str == null || str.isEmpty();
     }
 
-    public static Path writeToDisk(String content, Path targetDir, String fileName) throws IOException {
-        return Files.write(targetDir.resolve(fileName),
-                content.getBytes(StandardCharsets.UTF_8),
+    /**
+     * Writes the content only if it differs from the existing file, so that unchanged
+     * files keep their timestamps and don't trigger downstream rebuilds.
+     *
+     * @return true if the file was written
+     */
+    public static boolean writeToDisk(String content, Path targetDir, String fileName) throws IOException {
+        Path file = targetDir.resolve(fileName);
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        if (Files.isRegularFile(file) && Files.size(file) == bytes.length
+                && Arrays.equals(Files.readAllBytes(file), bytes)) {
+            return false;
+        }
+        Files.write(file, bytes,
                 StandardOpenOption.CREATE,
                 StandardOpenOption.TRUNCATE_EXISTING,
                 StandardOpenOption.WRITE);
+        return true;
     }
 
     public static String loadResourceAsString(Class<?> clazz, String name) throws IOException {
@@ -54,7 +69,7 @@ class Utils {
         try (InputStream is = clazz.getResourceAsStream(name)) {
             if (is == null) throw new IllegalStateException("Resource not found: " + name);
             try (BufferedReader reader = new BufferedReader(new InputStreamReader(is))) {
-                return reader.lines().collect(Collectors.joining(System.lineSeparator()));
+                return reader.lines().collect(Collectors.joining("\n"));
             }
         }
     }
@@ -67,6 +82,28 @@ class Utils {
         return builder;
     }
 
+    public static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required to be supported by all Java platforms", e);
+        }
+    }
+
+    public static void updateDigest(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0); // separator
+    }
+
+    public static String toHexString(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16));
+            builder.append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+
     @SafeVarargs
     public static <T> T getNonNull(T... choices) {
         for (T choice : choices) {
@@ -0,0 +1,237 @@
+/*-
+ * #%L
+ * Native Launchers Plugin
+ * %%
+ * Copyright (C) 2023 - 2026 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.launchers;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+import static us.hebi.launchers.Utils.*;
+
+/**
+ * Inspects the produced ELF launchers and checks that the native-image library resolves
+ * via the embedded runpath and exports the symbols that the launchers call into. The
+ * size, dependencies, relocations, and symbols of all binaries get reported, and the
+ * build fails if they exceed the configured thresholds. Launchers in other binary
+ * formats (Windows, macOS) are skipped.
+ *
+ * @since 17 Oct 2026
+ */
+@Mojo(name = "verify-launchers", defaultPhase = LifecyclePhase.VERIFY, threadSafe = true)
+public class VerifyLaunchersMojo extends BaseConfig {
+
+    /**
+     * Max size of a launcher executable in bytes, or 0 to disable the check
+     */
+    @Parameter(property = "launchers.verify.maxSize", defaultValue = "0")
+    protected long maxSize;
+
+    /**
+     * Max number of dynamic relocations that the loader needs to process for a
+     * launcher executable, or 0 to disable the check
+     */
+    @Parameter(property = "launchers.verify.maxRelocations", defaultValue = "0")
+    protected long maxRelocations;
+
+    /**
+     * Max number of shared libraries (DT_NEEDED) of a launcher executable, or 0 to
+     * disable the check
+     */
+    @Parameter(property = "launchers.verify.maxNeeded", defaultValue = "0")
+    protected int maxNeeded;
+
+    /**
+     * Fails the build if the native-image library can't be found via the runpath of
+     * the launchers. Disable when the library gets built or packaged separately.
+     */
+    @Parameter(property = "launchers.verify.requireLibrary", defaultValue = "true")
+    protected boolean requireLibrary;
+
+    @Parameter(property = "launchers.verify.outputDirectory", defaultValue = "${project.build.directory}/launcher-verification")
+    protected String verifyDirectory;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (shouldSkip()) return;
+        discoverLaunchers();
+
+        try {
+            // Multi-call launchers link to the same binary, so group by the actual file
+            Map<Path, List<Launcher>> binaries = new LinkedHashMap<>();
+            for (Launcher launcher : launchers) {
+                Path executable = Paths.get(getNonNull(launcher.outputDirectory, outputDirectory))
+                        .resolve(launcher.getOutputName())
+                        .toAbsolutePath();
+                if (!Files.exists(executable)) {
+                    throw new MojoExecutionException("Launcher executable does not exist: " + executable);
+                }
+                binaries.computeIfAbsent(executable.toRealPath(), key -> new ArrayList<>()).add(launcher);
+            }
+
+            List<Result> results = new ArrayList<>();
+            List<String> violations = new ArrayList<>();
+            Map<Path, ElfFile> libraries = new LinkedHashMap<>();
+            for (Map.Entry<Path, List<Launcher>> entry : binaries.entrySet()) {
+                Path executable = entry.getKey();
+                if (!ElfFile.isElf(executable)) {
+                    getLog().info("Skipping verification of non-ELF launcher " + executable);
+                    continue;
+                }
+                ElfFile elf = ElfFile.read(executable);
+                Result result = new Result(elf);
+                results.add(result);
+                checkThreshold(violations, elf, "size", elf.getSize(), maxSize);
+                checkThreshold(violations, elf, "relocations", elf.getRelocations(), maxRelocations);
+                checkThreshold(violations, elf, "needed libraries", elf.getNeeded().size(), maxNeeded);
+
+                // Resolve the library the same way as the loader, i.e., via $ORIGIN relative runpaths
+                for (Launcher launcher : entry.getValue()) {
+                    String libFile = getLibFileName(getImageName(launcher));
+                    Optional<Path> libPath = elf.getSearchPath(executable.getParent()).stream()
+                            .map(dir -> dir.resolve(libFile))
+                            .filter(Files::isRegularFile)
+                            .findFirst();
+                    if (!libPath.isPresent()) {
+                        String message = "Library " + libFile + " of launcher " + launcher.getName()
+                                + " can't be found via runpath " + elf.getRunpath();
+                        if (requireLibrary) {
+                            violations.add(message);
+                        } else {
+                            getLog().warn(message);
+                        }
+                        continue;
+                    }
+
+                    ElfFile library = libraries.get(libPath.get().toRealPath());
+                    if (library == null) {
+                        library = ElfFile.read(libPath.get().toRealPath());
+                        libraries.put(library.getFile(), library);
+                    }
+                    result.libraries.add(library.getFile());
+                    for (String symbol : getRequiredSymbols(launcher)) {
+                        if (!library.definesSymbol(symbol)) {
+                            violations.add("Library " + library.getFile() + " does not export "
+                                    + symbol + " required by launcher " + launcher.getName());
+                        }
+                    }
+                }
+            }
+            for (ElfFile library : libraries.values()) {
+                results.add(new Result(library));
+            }
+
+            if (!results.isEmpty()) {
+                Path targetDir = Paths.get(verifyDirectory);
+                Files.createDirectories(targetDir);
+                writeToDisk(toJson(results), targetDir, "launcher-verification.json");
+                getLog().info(toTable(results));
+                getLog().info("Wrote verification results to " + targetDir);
+            }
+
+            if (!violations.isEmpty()) {
+                throw new MojoFailureException("Launcher verification failed:\n " + String.join("\n ", violations));
+            }
+
+        } catch (IOException ex) {
+            throw new MojoFailureException(ex);
+        }
+    }
+
+    private List<String> getRequiredSymbols(Launcher launcher) {
+        if (useCEntryPoints()) {
+            List<String> symbols = new ArrayList<>(Arrays.asList("graal_create_isolate", launcher.getSymbolName()));
+            if ("EXIT_MODE_DESTROY".equals(launcher.getExitMode())) {
+                // bound by the runtime to tear down the isolate after main returns
+                symbols.add("graal_tear_down_isolate");
+            }
+            return symbols;
+        }
+        return Collections.singletonList("JNI_CreateJavaVM");
+    }
+
+    private static void checkThreshold(List<String> violations, ElfFile elf, String name, long value, long max) {
+        if (max > 0 && value > max) {
+            violations.add("Launcher " + elf.getFile().getFileName() + " exceeds max " + name + ": " + value + " > " + max);
+        }
+    }
+
+    private static String toJson(List<Result> results) {
+        JsonWriter json = new JsonWriter().beginArray();
+        for (Result result : results) {
+            json.beginObject()
+                    .name("name").value(result.name)
+                    .name("path").value(result.elf.getFile().toString())
+                    .name("sizeBytes").value(result.elf.getSize())
+                    .name("needed").values(result.elf.getNeeded())
+                    .name("runpath").values(result.elf.getRunpath())
+                    .name("relocations").value(result.elf.getRelocations())
+                    .name("dynamicSymbols").value(result.elf.getDynamicSymbols())
+                    .name("symbols").value(result.elf.getSymbols())
+                    .name("resolvedLibraries").values(result.libraries)
+                    .endObject();
+        }
+        return json.endArray().toString();
+    }
+
+    private static String toTable(List<Result> results) {
+        int nameWidth = "binary".length() + 2;
+        for (Result result : results) {
+            nameWidth = Math.max(nameWidth, result.name.length() + 2);
+        }
+        StringBuilder table = new StringBuilder("Launcher verification:\n");
+        appendSpaced(table, "binary", nameWidth);
+        for (String column : Arrays.asList("size [kB]", "needed", "relocs", "dynsyms", "symbols")) {
+            appendSpaced(table, column, 11);
+        }
+        for (Result result : results) {
+            table.append('\n');
+            appendSpaced(table, result.name, nameWidth);
+            appendSpaced(table, String.valueOf((result.elf.getSize() + 1023) / 1024), 11);
+            appendSpaced(table, String.valueOf(result.elf.getNeeded().size()), 11);
+            appendSpaced(table, String.valueOf(result.elf.getRelocations()), 11);
+            appendSpaced(table, String.valueOf(result.elf.getDynamicSymbols()), 11);
+            appendSpaced(table, String.valueOf(result.elf.getSymbols()), 11);
+        }
+        return table.toString();
+    }
+
+    static class Result {
+
+        Result(ElfFile elf) {
+            this.name = elf.getFile().getFileName().toString();
+            this.elf = elf;
+        }
+
+        final String name;
+        final ElfFile elf;
+        final Set<Path> libraries = new LinkedHashSet<>();
+
+    }
+
+}
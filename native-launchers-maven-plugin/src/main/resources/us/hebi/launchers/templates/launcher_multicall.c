@@ -0,0 +1,123 @@
+/*-
+ * #%L
+ * Native Launchers Plugin
+ * %%
+ * Copyright (C) 2023 - 2026 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+ /*
+ Template for a single multi-call launcher (similar to busybox) that contains the
+ constants of all launchers. The launcher gets selected based on the name of the
+ executable, so the individual launchers can be links to the same binary. Calling
+ the binary directly selects the launcher via the first argument, e.g., 'launchers hello'.
+ */
+
+// =========== OS-SPECIFIC DEFINITIONS ===========
+#if defined(_WIN32) || defined(_WIN64)
+#define LIB_FILE(imageName) L"" imageName ".dll"
+#elif defined(__APPLE__)
+#define LIB_FILE(imageName) imageName ".dylib"
+#elif defined(__linux__)
+#define LIB_FILE(imageName) imageName ".so"
+#endif
+
+#include <string.h>
+#include "launcher_utils.h"
+#include "launcher_runtime.h"
+
+typedef struct {
+    int cocoa;
+    LauncherConfig config;
+} LauncherEntry;
+
+// =========== LAUNCHER TABLE ===========
+{{JVM_ARG_TABLES}}
+
+{{LINKED_SYMBOLS}}
+static const LauncherEntry entries[] = {
+{{LAUNCHER_ENTRIES}}
+};
+
+static const int numEntries = sizeof(entries) / sizeof(entries[0]);
+static const LauncherEntry* selected = NULL;
+
+// Strips the directory and (on Windows) the .exe extension
+static int matchesProgramName(const char* name, const char* path) {
+    const char* programName = path;
+    for (const char* c = path; *c; c++) {
+        if (*c == '/' || *c == '\\') {
+            programName = c + 1;
+        }
+    }
+    size_t length = strlen(programName);
+    #if defined(_WIN32) || defined(_WIN64)
+    if (length > 4 && _stricmp(programName + length - 4, ".exe") == 0) {
+        length -= 4;
+    }
+    #endif
+    return strlen(name) == length && strncmp(name, programName, length) == 0;
+}
+
+static const LauncherEntry* findEntry(const char* path) {
+    for (int i = 0; i < numEntries; i++) {
+        if (matchesProgramName(entries[i].config.name, path)) {
+            return &entries[i];
+        }
+    }
+    return NULL;
+}
+
+// Main entry point
+int main_entry_point(int argc, char** argv) {
+    return launcher_main(&selected->config, argc, argv);
+}
+
+#if defined(__APPLE__) && defined(COCOA)
+typedef int (*main_callback_t)(int argc, char **argv);
+extern void launchCocoaApp(int argc, char** argv, main_callback_t callback);
+#endif
+
+int main(int argc, char** argv) {
+    const char* programPath = argc > 0 ? argv[0] : "";
+    selected = findEntry(programPath);
+
+    // Select the launcher via the first argument when called directly
+    if (selected == NULL && argc > 1 && matchesProgramName("{{MULTI_CALL_NAME}}", programPath)) {
+        selected = findEntry(argv[1]);
+        argc--;
+        argv++;
+    }
+
+    if (selected == NULL) {
+        PRINT_ERROR("Unknown launcher '%s'. Available launchers:", programPath);
+        for (int i = 0; i < numEntries; i++) {
+            fprintf(stderr, "  %s\n", entries[i].config.name);
+        }
+        return 1;
+    }
+    PRINT_DEBUG("Selected launcher: %s", selected->config.name);
+
+    // Logic to handle macOS specifics where the Cocoa/UI loop needs to take over the
+    // main thread and the actual main method needs to be launched in the background
+    #if defined(__APPLE__) && defined(COCOA)
+    if (selected->cocoa) {
+        PRINT_DEBUG("Launching Cocoa framework");
+        launchCocoaApp(argc, argv, main_entry_point);
+        return 0;
+    }
+    #endif
+    return main_entry_point(argc, argv);
+}
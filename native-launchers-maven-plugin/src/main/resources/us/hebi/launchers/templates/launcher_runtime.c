@@ -0,0 +1,2053 @@
+/*-
+ * #%L
+ * Native Launchers Plugin
+ * %%
+ * Copyright (C) 2023 - 2026 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+ /*
+ Shared runtime that dynamically calls a main entry point inside a native-image
+ shared library. The code is the same for all launchers, so it can either be
+ compiled together with each launcher, or compiled once and linked into all of them.
+ */
+
+// =========== OS-SPECIFIC DEFINITIONS ===========
+#if defined(__linux__) && !defined(_GNU_SOURCE)
+#define _GNU_SOURCE // accept4, on_exit
+#endif
+
+#if defined(_WIN32) || defined(_WIN64)
+#ifndef OS_FAMILY
+#define OS_FAMILY "Windows"
+#endif
+#define LIB_FORMAT "%ls"
+#elif defined(__APPLE__)
+#ifndef OS_FAMILY
+#define OS_FAMILY "macOS"
+#endif
+#define LIB_FORMAT "%s"
+#elif defined(__linux__)
+#ifndef OS_FAMILY
+#define OS_FAMILY "Linux"
+#endif
+#define LIB_FORMAT "%s"
+#endif
+
+// =========== MAIN CODE ===========
+// Disable statically linked methods
+#define _JNI_IMPLEMENTATION_
+#include "jni.h"
+#include <stdint.h>
+
+// Function signature for dynamic lookup
+typedef jint (JNICALL *CreateJavaVM_Func)(
+    JavaVM **pvm,
+    JNIEnv **penv,         // type-safe alias for void**
+    JavaVMInitArgs *args    // type-safe alias for void*
+);
+
+// Signatures for calling a generated @CEntryPoint without JNI
+typedef int (*CreateIsolate_Func)(
+    void *params,           // graal_create_isolate_params_t*
+    void **isolate,         // graal_isolate_t**
+    void **thread           // graal_isolatethread_t**
+);
+// Layout of graal_create_isolate_params_t (graal_isolate.h) up to version 4. Older
+// images ignore the fields of versions they don't know.
+typedef struct {
+    int version;
+    uintptr_t reservedAddressSpaceSize;
+    const char* auxiliaryImagePath;
+    uintptr_t auxiliaryImageReservedSpaceSize;
+    int argc;                               // version 3: runtime options, argv[0] is ignored
+    char** argv;
+    int pkey;
+    char ignoreUnrecognizedArguments;       // version 4
+    char exitWhenArgumentParsingFails;
+} IsolateParams;
+typedef int (*TearDownIsolate_Func)(
+    void *thread            // graal_isolatethread_t*
+);
+typedef int (*EntryPoint_Func)(
+    void *thread,
+    int nOptions,
+    char **options,
+    int argc,
+    char **argv
+);
+
+#include <string.h>
+#include "launcher_utils.h"
+#include "launcher_runtime.h"
+
+// =========== STARTUP TRACING ===========
+// Enabled at runtime by setting LAUNCHER_TRACE to 'stderr' (or 1) or to a file
+// path. Each phase gets printed as a single JSON line and gets exposed to Java
+// as a 'launcher.startup.<phase>' property (in nanoseconds).
+typedef enum {
+    PHASE_EXECUTABLE_PATH,
+    PHASE_DLOPEN,
+    PHASE_CREATE_VM,
+    PHASE_ARGS,
+    PHASE_LOOKUP,
+    PHASE_MAIN,
+    NUM_PHASES
+} StartupPhase;
+
+static const char* phaseNames[NUM_PHASES] = {
+    "executablePath",
+    "dlopen",
+    "createJavaVM",
+    "args",
+    "lookup",
+    "main"
+};
+
+static FILE* traceFile = NULL;
+static char traceLauncher[256];
+static unsigned long long traceOrigin = 0;
+static unsigned long long phaseStart = 0;
+static unsigned long long phaseDurations[NUM_PHASES];
+
+// Copies the launcher name as a JSON string body, i.e., with quotes, backslashes and
+// control characters escaped. Names that don't fit get truncated.
+static void traceEscapeName(const char* name) {
+    size_t pos = 0;
+    for (const unsigned char* c = (const unsigned char*) name; *c != '\0'; c++) {
+        if (pos + 7 >= sizeof(traceLauncher)) break;
+        if (*c == '"' || *c == '\\') {
+            traceLauncher[pos++] = '\\';
+            traceLauncher[pos++] = (char) *c;
+        } else if (*c < 0x20) {
+            pos += snprintf(traceLauncher + pos, sizeof(traceLauncher) - pos, "\\u%04x", *c);
+        } else {
+            traceLauncher[pos++] = (char) *c;
+        }
+    }
+    traceLauncher[pos] = '\0';
+}
+
+static void traceInit(const LauncherConfig* config) {
+    const char* target = getenv("LAUNCHER_TRACE");
+    if (target == NULL || target[0] == '\0' || strcmp(target, "0") == 0) {
+        return;
+    }
+    if (strcmp(target, "1") == 0 || strcmp(target, "stderr") == 0) {
+        traceFile = stderr;
+    } else if ((traceFile = fopen(target, "a")) == NULL) {
+        PRINT_ERROR("Could not open trace file: %s", target);
+        return;
+    }
+    traceEscapeName(config->name);
+    traceOrigin = nanoTime();
+    phaseStart = traceOrigin;
+}
+
+static void traceBegin() {
+    if (traceFile != NULL) {
+        phaseStart = nanoTime();
+    }
+}
+
+static void traceEnd(StartupPhase phase) {
+    if (traceFile == NULL) return;
+    unsigned long long now = nanoTime();
+    phaseDurations[phase] = now - phaseStart;
+    fprintf(traceFile, "{\"launcher\":\"%s\",\"phase\":\"%s\",\"startNanos\":%llu,\"durationNanos\":%llu}\n",
+        traceLauncher, phaseNames[phase], phaseStart - traceOrigin, phaseDurations[phase]);
+    fflush(traceFile);
+}
+
+// Sets the startup phases that are done at the time of the call
+static void traceSetProperties(JNIEnv* env, StartupPhase lastPhase) {
+    if (traceFile == NULL) return;
+    jclass systemClass = (*env)->FindClass(env, "java/lang/System");
+    jmethodID setProperty = systemClass == NULL ? NULL : (*env)->GetStaticMethodID(env, systemClass,
+        "setProperty", "(Ljava/lang/String;Ljava/lang/String;)Ljava/lang/String;");
+    if (setProperty == NULL) {
+        PRINT_ERROR("Failed to find System.setProperty. Startup properties are not available.");
+        (*env)->ExceptionClear(env);
+        return;
+    }
+    char key[64];
+    char value[32];
+    for (int i = 0; i <= lastPhase; i++) {
+        snprintf(key, sizeof(key), "launcher.startup.%s", phaseNames[i]);
+        snprintf(value, sizeof(value), "%llu", phaseDurations[i]);
+        jstring jKey = (*env)->NewStringUTF(env, key);
+        jstring jValue = (*env)->NewStringUTF(env, value);
+        jobject previous = (*env)->CallStaticObjectMethod(env, systemClass, setProperty, jKey, jValue);
+        (*env)->DeleteLocalRef(env, previous);
+        (*env)->DeleteLocalRef(env, jKey);
+        (*env)->DeleteLocalRef(env, jValue);
+    }
+    (*env)->DeleteLocalRef(env, systemClass);
+}
+
+static void traceClose() {
+    if (traceFile != NULL && traceFile != stderr) {
+        fclose(traceFile);
+    }
+    traceFile = NULL;
+}
+
+// =========== ARGUMENT FILES ===========
+// Expands '@file' arguments similar to javac. The files get memory-mapped and split
+// in place, so the expanded arguments point directly into the mapping without any
+// per-argument allocations. '@@' escapes a literal '@'.
+#if !defined(_WIN32) && !defined(_WIN64)
+#include <fcntl.h>
+#include <sys/mman.h>
+#include <sys/stat.h>
+#include <unistd.h>
+#endif
+
+typedef struct {
+    char* data;                     // writable and null-terminated at data[size]
+    size_t size;
+    int mapped;
+} ArgFile;
+
+typedef struct {
+    int argc;
+    char** argv;
+    int numFiles;
+    int numSlots;
+    ArgFile* files;                 // indexed by the position in the original argv
+} ExpandedArgs;
+
+static int loadArgFile(const char* path, ArgFile* file) {
+    #if !defined(_WIN32) && !defined(_WIN64)
+    // Private mappings are copy-on-write, and the remainder of the last page is
+    // zero-filled, so it can be split in place as long as the size is not page aligned
+    int fd = open(path, O_RDONLY | O_CLOEXEC);
+    if (fd < 0) {
+        return 0;
+    }
+    struct stat info;
+    long pageSize = sysconf(_SC_PAGESIZE);
+    if (fstat(fd, &info) == 0 && info.st_size > 0 && info.st_size % pageSize != 0) {
+        void* data = mmap(NULL, (size_t)info.st_size, PROT_READ | PROT_WRITE, MAP_PRIVATE, fd, 0);
+        if (data != MAP_FAILED) {
+            close(fd);
+            file->data = (char*)data;
+            file->size = (size_t)info.st_size;
+            file->mapped = 1;
+            return 1;
+        }
+    }
+    close(fd);
+    #endif
+
+    // Fall back to reading it into a single buffer
+    FILE* input = fopen(path, "rb");
+    if (input == NULL) {
+        return 0;
+    }
+    size_t capacity = 4096;
+    file->data = (char*)malloc(capacity + 1);
+    checkNotNull(file->data);
+    file->size = 0;
+    size_t n;
+    while ((n = fread(file->data + file->size, 1, capacity - file->size, input)) > 0) {
+        file->size += n;
+        if (file->size == capacity) {
+            capacity *= 2;
+            file->data = (char*)realloc(file->data, capacity + 1);
+            checkNotNull(file->data);
+        }
+    }
+    fclose(input);
+    file->data[file->size] = '\0';
+    file->mapped = 0;
+    return 1;
+}
+
+static size_t countArgFileRecords(const ArgFile* file, ArgFileMode mode) {
+    char separator = mode == ARG_FILES_NUL ? '\0' : '\n';
+    size_t count = 1;
+    const char* end = file->data + file->size;
+    for (const char* c = file->data; (c = (const char*)memchr(c, separator, end - c)) != NULL; c++) {
+        count++;
+    }
+    return count;
+}
+
+// Terminates all records in place and adds them to args. Returns the number of records.
+static int splitArgFile(ArgFile* file, ArgFileMode mode, char** args) {
+    char separator = mode == ARG_FILES_NUL ? '\0' : '\n';
+    char* end = file->data + file->size;
+    int count = 0;
+    for (char* record = file->data; record < end;) {
+        char* next = (char*)memchr(record, separator, end - record);
+        if (next == NULL) {
+            next = end; // data[size] is already 0
+        }
+        *next = '\0';
+        if (mode == ARG_FILES_LINES) {
+            if (next > record && next[-1] == '\r') {
+                next[-1] = '\0';
+            }
+            if (record[0] != '\0') {
+                args[count++] = record;
+            }
+        } else {
+            args[count++] = record;
+        }
+        record = next + 1;
+    }
+    return count;
+}
+
+static int expandArgFiles(const LauncherConfig* config, int argc, char** argv, ExpandedArgs* result) {
+    memset(result, 0, sizeof(ExpandedArgs));
+    result->argc = argc;
+    result->argv = argv;
+    if (config->argFiles == ARG_FILES_NONE) {
+        return 1;
+    }
+
+    // Load all files and determine an upper bound for the number of args
+    size_t maxArgs = (size_t)argc + 1;
+    result->files = (ArgFile*)calloc(argc, sizeof(ArgFile));
+    checkNotNull(result->files);
+    result->numSlots = argc;
+    for (int i = 1; i < argc; i++) {
+        if (argv[i][0] != '@' || argv[i][1] == '@') continue;
+        if (!loadArgFile(argv[i] + 1, &result->files[i])) {
+            PRINT_ERROR("Could not read argument file: %s", argv[i] + 1);
+            return 0;
+        }
+        result->numFiles++;
+        maxArgs += countArgFileRecords(&result->files[i], config->argFiles);
+    }
+    if (result->numFiles == 0) {
+        return 1;
+    }
+
+    char** args = (char**)calloc(maxArgs, sizeof(char*));
+    checkNotNull(args);
+    int count = 0;
+    args[count++] = argv[0];
+    for (int i = 1; i < argc; i++) {
+        if (result->files[i].data != NULL) {
+            count += splitArgFile(&result->files[i], config->argFiles, args + count);
+        } else if (argv[i][0] == '@') {
+            args[count++] = argv[i] + 1; // escaped '@@'
+        } else {
+            args[count++] = argv[i];
+        }
+    }
+    PRINT_DEBUG("Expanded %d argument files to %d args", result->numFiles, count - 1);
+    result->argc = count;
+    result->argv = args;
+    return 1;
+}
+
+static void freeArgFile(ArgFile* file) {
+    if (file->data == NULL) return;
+    #if !defined(_WIN32) && !defined(_WIN64)
+    if (file->mapped) {
+        munmap(file->data, file->size);
+        return;
+    }
+    #endif
+    free(file->data);
+}
+
+static void freeExpandedArgs(ExpandedArgs* args) {
+    if (args->files == NULL) return;
+    for (int i = 0; i < args->numSlots; i++) {
+        freeArgFile(&args->files[i]);
+    }
+    free(args->files);
+    if (args->numFiles > 0) {
+        free(args->argv);
+    }
+}
+
+// =========== JVM OPTIONS ===========
+// Options that can be changed without recompiling, i.e., a '<name>.vmoptions' file
+// next to the executable and a '<NAME>_OPTS' environment variable. They get added
+// after the built-in options, so they take precedence.
+typedef struct {
+    JavaVMOption* options;
+    int count;
+    int capacity;
+} OptionList;
+
+static void addOption(OptionList* list, char* option) {
+    if (list->count == list->capacity) {
+        list->capacity = list->capacity == 0 ? 32 : list->capacity * 2;
+        list->options = (JavaVMOption*)realloc(list->options, list->capacity * sizeof(JavaVMOption));
+        checkNotNull(list->options);
+    }
+    list->options[list->count].optionString = option;
+    list->options[list->count].extraInfo = NULL;
+    list->count++;
+}
+
+static int isBlank(char c) {
+    return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+}
+
+// One option per line. Blank lines and lines starting with '#' are ignored.
+static void addVmOptionsFile(OptionList* list, const char* exePath, const char* name, ArgFile* file) {
+    if (exePath == NULL) return;
+    size_t dirLength = 0;
+    for (const char* c = exePath; *c; c++) {
+        if (*c == '/' || *c == '\\') {
+            dirLength = c - exePath + 1;
+        }
+    }
+    size_t pathSize = dirLength + strlen(name) + sizeof(".vmoptions");
+    char* path = (char*)malloc(pathSize);
+    checkNotNull(path);
+    snprintf(path, pathSize, "%.*s%s.vmoptions", (int)dirLength, exePath, name);
+    if (!loadArgFile(path, file)) {
+        PRINT_DEBUG("No vm options file at %s", path);
+        free(path);
+        return;
+    }
+    PRINT_DEBUG("Reading vm options from %s", path);
+    free(path);
+
+    char** lines = (char**)calloc(countArgFileRecords(file, ARG_FILES_LINES), sizeof(char*));
+    checkNotNull(lines);
+    int numLines = splitArgFile(file, ARG_FILES_LINES, lines);
+    for (int i = 0; i < numLines; i++) {
+        char* line = lines[i];
+        while (isBlank(*line)) line++;
+        char* end = line + strlen(line);
+        while (end > line && isBlank(end[-1])) *--end = '\0';
+        if (line[0] != '\0' && line[0] != '#') {
+            addOption(list, line);
+        }
+    }
+    free(lines);
+}
+
+// Splits whitespace-separated tokens in place. Single or double quotes can be used for
+// tokens that contain spaces. The write position never overtakes the read position.
+// Requires space for strlen(buffer) / 2 + 1 tokens.
+static int splitQuoted(char* buffer, char** tokens) {
+    int count = 0;
+    char* read = buffer;
+    char* write = buffer;
+    for (;;) {
+        while (isBlank(*read)) read++;
+        if (*read == '\0') break;
+        char* token = write;
+        char quote = 0;
+        while (*read != '\0' && (quote != 0 || !isBlank(*read))) {
+            if (quote == 0 && (*read == '"' || *read == '\'')) {
+                quote = *read;
+            } else if (*read == quote) {
+                quote = 0;
+            } else {
+                *write++ = *read;
+            }
+            read++;
+        }
+        char separator = *read;
+        *write++ = '\0';
+        tokens[count++] = token;
+        if (separator == '\0') break;
+        read++;
+    }
+    return count;
+}
+
+// Whitespace-separated options that may be quoted. Returns the buffer that holds
+// the options, or NULL if not set.
+static char* addEnvOptions(OptionList* list, const char* name) {
+    char variable[256];
+    size_t length = 0;
+    for (const char* c = name; *c && length < sizeof(variable) - sizeof("_OPTS"); c++) {
+        char upper = (*c >= 'a' && *c <= 'z') ? *c - 'a' + 'A' : *c;
+        int alphaNumeric = (upper >= 'A' && upper <= 'Z') || (upper >= '0' && upper <= '9');
+        variable[length++] = alphaNumeric ? upper : '_';
+    }
+    memcpy(variable + length, "_OPTS", sizeof("_OPTS"));
+
+    const char* value = getenv(variable);
+    if (value == NULL || value[0] == '\0') {
+        return NULL;
+    }
+    PRINT_DEBUG("Reading vm options from %s", variable);
+
+    char* buffer = strdup(value);
+    checkNotNull(buffer);
+    char** tokens = (char**)malloc((strlen(buffer) / 2 + 1) * sizeof(char*));
+    checkNotNull(tokens);
+    int numTokens = splitQuoted(buffer, tokens);
+    for (int i = 0; i < numTokens; i++) {
+        if (tokens[i][0] != '\0') {
+            addOption(list, tokens[i]);
+        }
+    }
+    free(tokens);
+    return buffer;
+}
+
+// =========== CONTAINER LIMITS ===========
+// Derives the heap size and the number of processors from the cgroup (v1 or v2)
+// limits, so that applications in containers neither get OOM-killed nor waste the
+// memory budget. Explicitly set options take precedence. The detected and chosen
+// values are available as 'launcher.container.*' properties.
+#if defined(__linux__)
+#include <stdarg.h>
+
+#ifndef CGROUP_ROOT
+#define CGROUP_ROOT "/sys/fs/cgroup"
+#endif
+
+typedef struct {
+    char values[8][96];
+    int count;
+} ContainerOptions;
+
+static char* formatOption(ContainerOptions* container, const char* format, ...) {
+    char* value = container->values[container->count++];
+    va_list args;
+    va_start(args, format);
+    vsnprintf(value, sizeof(container->values[0]), format, args);
+    va_end(args);
+    return value;
+}
+
+static int hasOption(const OptionList* list, const char* prefix) {
+    for (int i = 0; i < list->count; i++) {
+        if (strncmp(list->options[i].optionString, prefix, strlen(prefix)) == 0) {
+            return 1;
+        }
+    }
+    return 0;
+}
+
+static int readFirstLine(const char* path, char* buffer, size_t size) {
+    FILE* file = fopen(path, "r");
+    if (file == NULL) {
+        return 0;
+    }
+    int found = fgets(buffer, (int)size, file) != NULL;
+    fclose(file);
+    buffer[strcspn(buffer, "\n")] = '\0';
+    return found;
+}
+
+// Finds the cgroup of this process from lines like '4:memory:/path' (v1) or '0::/path' (v2)
+static int getCgroupPath(const char* controller, char* path, size_t size) {
+    FILE* file = fopen("/proc/self/cgroup", "r");
+    if (file == NULL) {
+        return 0;
+    }
+    char line[PATH_MAX + 64];
+    int found = 0;
+    while (!found && fgets(line, sizeof(line), file) != NULL) {
+        line[strcspn(line, "\n")] = '\0';
+        char* controllers = strchr(line, ':');
+        char* cgroup = controllers == NULL ? NULL : strchr(controllers + 1, ':');
+        if (cgroup == NULL) continue;
+        *cgroup++ = '\0';
+        controllers++;
+        if (controller == NULL) {
+            found = strcmp(line, "0") == 0 && controllers[0] == '\0';
+        } else {
+            for (char* token = strtok(controllers, ","); token != NULL && !found; token = strtok(NULL, ",")) {
+                found = strcmp(token, controller) == 0;
+            }
+        }
+        if (found) {
+            snprintf(path, size, "%s", strcmp(cgroup, "/") == 0 ? "" : cgroup);
+        }
+    }
+    fclose(file);
+    return found;
+}
+
+// Reads a file of the process' cgroup, or of the root if the hierarchy is namespaced
+static int readCgroupFile(const char* controller, const char* mount, const char* name, char* value, size_t size) {
+    char cgroup[PATH_MAX];
+    char path[2 * PATH_MAX];
+    if (getCgroupPath(controller, cgroup, sizeof(cgroup))) {
+        snprintf(path, sizeof(path), CGROUP_ROOT "%s%s/%s", mount, cgroup, name);
+        if (readFirstLine(path, value, size)) {
+            return 1;
+        }
+    }
+    snprintf(path, sizeof(path), CGROUP_ROOT "%s/%s", mount, name);
+    return readFirstLine(path, value, size);
+}
+
+// Returns the memory limit in bytes, or 0 if there is none
+static unsigned long long getContainerMemoryLimit() {
+    char value[128];
+    if (readCgroupFile(NULL, "", "memory.max", value, sizeof(value))) {
+        return strcmp(value, "max") == 0 ? 0 : strtoull(value, NULL, 10);
+    }
+    if (readCgroupFile("memory", "/memory", "memory.limit_in_bytes", value, sizeof(value))) {
+        // v1 reports a value close to LLONG_MAX if there is no limit
+        unsigned long long limit = strtoull(value, NULL, 10);
+        return limit >= (1ULL << 60) ? 0 : limit;
+    }
+    return 0;
+}
+
+// Returns the number of processors that can be used, or 0 if there is no limit
+static int getContainerCpuLimit() {
+    char value[128];
+    long long quota = -1;
+    long long period = 0;
+    if (readCgroupFile(NULL, "", "cpu.max", value, sizeof(value))) {
+        if (strncmp(value, "max", 3) != 0) {
+            sscanf(value, "%lld %lld", &quota, &period);
+        }
+    } else if (readCgroupFile("cpu", "/cpu", "cpu.cfs_quota_us", value, sizeof(value))) {
+        quota = strtoll(value, NULL, 10);
+        if (readCgroupFile("cpu", "/cpu", "cpu.cfs_period_us", value, sizeof(value))) {
+            period = strtoll(value, NULL, 10);
+        }
+    }
+    if (quota <= 0 || period <= 0) {
+        return 0;
+    }
+    return (int)((quota + period - 1) / period);
+}
+
+static void addContainerOptions(OptionList* list, const LauncherConfig* config, ContainerOptions* container) {
+    if (config->containerHeapPercentage <= 0) return;
+
+    unsigned long long memoryLimit = getContainerMemoryLimit();
+    if (memoryLimit > 0) {
+        PRINT_DEBUG("Container memory limit: %llu bytes", memoryLimit);
+        addOption(list, formatOption(container, "-Dlauncher.container.memoryLimit=%llu", memoryLimit));
+        // Sizes are rounded down to whole megabytes
+        unsigned long long maxHeapMb = (memoryLimit >> 20) * config->containerHeapPercentage / 100;
+        int hasHeapOption = hasOption(list, "-Xmx") || hasOption(list, "-XX:MaxHeapSize") || hasOption(list, "-XX:MaxRAM");
+        if (!hasHeapOption && maxHeapMb >= 4) {
+            addOption(list, formatOption(container, "-Xmx%llum", maxHeapMb));
+            addOption(list, formatOption(container, "-Dlauncher.container.maxHeapSize=%llu", maxHeapMb << 20));
+            if (!hasOption(list, "-Xmn") && !hasOption(list, "-XX:MaxNewSize")) {
+                unsigned long long maxNewMb = maxHeapMb / 3;
+                addOption(list, formatOption(container, "-Xmn%llum", maxNewMb));
+                addOption(list, formatOption(container, "-Dlauncher.container.maxNewSize=%llu", maxNewMb << 20));
+            }
+        }
+    }
+
+    int cpuLimit = getContainerCpuLimit();
+    if (cpuLimit > 0) {
+        PRINT_DEBUG("Container cpu limit: %d", cpuLimit);
+        if (!hasOption(list, "-XX:ActiveProcessorCount")) {
+            addOption(list, formatOption(container, "-XX:ActiveProcessorCount=%d", cpuLimit));
+            addOption(list, formatOption(container, "-Dlauncher.container.activeProcessorCount=%d", cpuLimit));
+        }
+    }
+}
+#endif
+
+// =========== LIBRARY PREFETCH ===========
+// On a cold start the loader blocks on one major page fault after another while the
+// isolate touches the code and image heap of the library. Prefetching starts reading
+// the library into the page cache before dlopen, and the reads overlap with building
+// the vm options. If a '<library>.prefetch' file exists next to the library, only the
+// recorded page ranges get read. Such a file can be recorded in a training run via
+// LAUNCHER_PREFETCH_RECORD=<file>, which writes the pages of the library that are
+// mapped into this process after main returns. The page tables of the process are
+// read from /proc/self/pagemap, so pages that are cached only because of other
+// processes don't get recorded. The kernel also maps cached neighbors of faulting
+// pages (fault-around), so the tightest ranges get recorded on a cold start, i.e.,
+// after 'echo 3 > /proc/sys/vm/drop_caches' and with LAUNCHER_PREFETCH=0. Prefetching
+// only uses posix_fadvise on the file. There is no madvise on the mapping, because
+// the library is not mapped yet when the reads get started.
+// LAUNCHER_PREFETCH=0|1 overrides the generated setting, e.g., for comparing the
+// page faults that get reported in the debug output.
+#if defined(__linux__)
+#define LAUNCHER_PREFETCH_SUPPORTED
+#include <link.h>
+#include <sys/resource.h>
+
+// Same locations as the default rpath of the launchers
+static const char* prefetchDirs[] = { "", "../lib/", "../lib/runtime/lib/", "../lib/runtime/lib/server/" };
+
+static struct rusage prefetchUsage;
+static int prefetchEnabled = 0;
+
+static int isPrefetchEnabled(const LauncherConfig* config) {
+    const char* value = getenv("LAUNCHER_PREFETCH");
+    if (value != NULL && *value != '\0') {
+        return strcmp(value, "0") != 0;
+    }
+    return config->prefetch;
+}
+
+static void prefetchLibrary(const LauncherConfig* config, const char* exePath) {
+    getrusage(RUSAGE_SELF, &prefetchUsage);
+    if (exePath == NULL || config->linked != NULL || !isPrefetchEnabled(config)) {
+        return;
+    }
+
+    // Resolve the library the same way as the loader
+    int dirLength = (int)(strrchr(exePath, '/') - exePath + 1);
+    char path[PATH_MAX];
+    int fd = -1;
+    for (size_t i = 0; i < sizeof(prefetchDirs) / sizeof(prefetchDirs[0]) && fd < 0; i++) {
+        snprintf(path, sizeof(path), "%.*s%s%s", dirLength, exePath, prefetchDirs[i], config->libFile);
+        fd = open(path, O_RDONLY | O_CLOEXEC);
+    }
+    if (fd < 0) {
+        PRINT_DEBUG("Could not find %s for prefetching", config->libFile);
+        return;
+    }
+    prefetchEnabled = 1;
+
+    // The kernel keeps reading after the file gets closed
+    char rangesPath[PATH_MAX + sizeof(".prefetch")];
+    snprintf(rangesPath, sizeof(rangesPath), "%s.prefetch", path);
+    FILE* ranges = fopen(rangesPath, "r");
+    if (ranges != NULL) {
+        unsigned long long offset, length, total = 0;
+        int count = 0;
+        while (fscanf(ranges, "%llu %llu", &offset, &length) == 2) {
+            posix_fadvise(fd, (off_t)offset, (off_t)length, POSIX_FADV_WILLNEED);
+            total += length;
+            count++;
+        }
+        fclose(ranges);
+        PRINT_DEBUG("Prefetching %d recorded ranges (%llu kB) of %s", count, total / 1024, path);
+    } else {
+        PRINT_DEBUG("Prefetching %s", path);
+        posix_fadvise(fd, 0, 0, POSIX_FADV_WILLNEED);
+    }
+    close(fd);
+}
+
+static void prefetchReport(const char* stage) {
+    struct rusage usage;
+    getrusage(RUSAGE_SELF, &usage);
+    PRINT_DEBUG("Page faults until %s: %ld major, %ld minor (prefetch %s)", stage,
+        usage.ru_majflt - prefetchUsage.ru_majflt,
+        usage.ru_minflt - prefetchUsage.ru_minflt,
+        prefetchEnabled ? "on" : "off");
+}
+
+typedef struct {
+    const char* libFile;
+    FILE* out;
+    int pagemap;
+    int count;
+} PrefetchRecord;
+
+// Writes the mapped pages of each loaded segment as ranges of file offsets
+static int recordMappedPages(struct dl_phdr_info* info, size_t size, void* data) {
+    PrefetchRecord* record = (PrefetchRecord*)data;
+    const char* name = strrchr(info->dlpi_name, '/');
+    if (strcmp(name != NULL ? name + 1 : info->dlpi_name, record->libFile) != 0) {
+        return 0;
+    }
+    uintptr_t pageSize = (uintptr_t)sysconf(_SC_PAGESIZE);
+    for (int i = 0; i < info->dlpi_phnum; i++) {
+        const ElfW(Phdr)* segment = &info->dlpi_phdr[i];
+        if (segment->p_type != PT_LOAD || segment->p_filesz == 0) continue;
+        uintptr_t start = (info->dlpi_addr + segment->p_vaddr) & ~(pageSize - 1);
+        uintptr_t end = info->dlpi_addr + segment->p_vaddr + segment->p_filesz;
+        unsigned long long fileStart = segment->p_offset & ~(unsigned long long)(pageSize - 1);
+        size_t numPages = (end - start + pageSize - 1) / pageSize;
+
+        // One 64-bit entry per virtual page. Bit 63 is set for pages in the page tables.
+        uint64_t* entries = (uint64_t*)malloc(numPages * sizeof(uint64_t));
+        size_t length = numPages * sizeof(uint64_t);
+        if (entries == NULL || pread(record->pagemap, entries, length,
+                (off_t)(start / pageSize * sizeof(uint64_t))) != (ssize_t)length) {
+            free(entries);
+            continue;
+        }
+        for (size_t page = 0; page < numPages;) {
+            if (!(entries[page] >> 63)) {
+                page++;
+                continue;
+            }
+            size_t first = page;
+            while (page < numPages && (entries[page] >> 63)) page++;
+            fprintf(record->out, "%llu %llu\n", fileStart + first * pageSize,
+                (unsigned long long)((page - first) * pageSize));
+            record->count++;
+        }
+        free(entries);
+    }
+    return 1;
+}
+
+static void prefetchRecord(const LauncherConfig* config) {
+    const char* path = getenv("LAUNCHER_PREFETCH_RECORD");
+    if (path == NULL || *path == '\0') return;
+    int pagemap = open("/proc/self/pagemap", O_RDONLY | O_CLOEXEC);
+    if (pagemap < 0) {
+        PRINT_ERROR("Could not read /proc/self/pagemap for recording prefetch ranges");
+        return;
+    }
+    PrefetchRecord record = { config->libFile, fopen(path, "w"), pagemap, 0 };
+    if (record.out == NULL) {
+        PRINT_ERROR("Could not write prefetch ranges to %s", path);
+        close(pagemap);
+        return;
+    }
+    dl_iterate_phdr(recordMappedPages, &record);
+    fclose(record.out);
+    close(pagemap);
+    PRINT_DEBUG("Recorded %d prefetch ranges to %s", record.count, path);
+}
+#endif
+
+// =========== JAVA VM ===========
+// State of a created VM that can be used to call the main method. Daemons keep
+// it around and call into it multiple times.
+typedef struct {
+    const LauncherConfig* config;
+    void* library;                  // handle of the dynamically loaded library
+    JavaVM* javaVM;                 // set when using JNI
+    JNIEnv* env;                    // set when using JNI
+    void* thread;                   // set when calling a @CEntryPoint
+    EntryPoint_Func entryPoint;
+    int nOptions;
+    char** options;                 // system properties for the @CEntryPoint
+} LauncherVM;
+
+// Launchers either load the library at runtime (dynamic), or get linked against it,
+// in which case the system loader already bound all symbols before main (linked)
+static unsigned long long bindStart = 0;
+
+static void* bindLibrary(const LauncherConfig* config) {
+    bindStart = nanoTime();
+    if (config->linked != NULL) {
+        PRINT_DEBUG("Using library " LIB_FORMAT " that was bound at link time", config->libFile);
+        return NULL;
+    }
+    PRINT_DEBUG("Loading library " LIB_FORMAT, config->libFile);
+    return checkNotNull(dlopen(config->libFile, RTLD_LAZY));
+}
+
+static void* bindSymbol(void* handle, void* linkedSymbol, const char* name) {
+    if (linkedSymbol != NULL) {
+        return linkedSymbol;
+    }
+    PRINT_DEBUG("Looking up symbol: %s", name);
+    return checkNotNull(dlsym(handle, name));
+}
+
+static void bindEnd(const LauncherConfig* config) {
+    traceEnd(PHASE_DLOPEN);
+    PRINT_DEBUG("Bound library in %llu us (%s)", (nanoTime() - bindStart) / 1000,
+        config->linked != NULL ? "linked" : "dynamic");
+}
+
+static int createJavaVM(LauncherVM* vm, void* handle, JavaVMInitArgs* vmArgs) {
+    const LinkedSymbols* linked = vm->config->linked;
+    CreateJavaVM_Func JNI_CreateJavaVM = (CreateJavaVM_Func)bindSymbol(handle,
+        linked != NULL ? linked->createJavaVM : NULL, "JNI_CreateJavaVM");
+    bindEnd(vm->config);
+
+    // Call JNI_CreateJavaVM (the JavaVM is the same as the isolate)
+    traceBegin();
+    if (JNI_CreateJavaVM(&vm->javaVM, &vm->env, vmArgs) != JNI_OK) {
+        PRINT_ERROR("Failed to create JavaVM (GraalVM isolate)");
+        return 1;
+    }
+    traceEnd(PHASE_CREATE_VM);
+    return 0;
+}
+
+// Converts C args to a Java String[] with one JNI round-trip per argument
+static jobjectArray newJavaArgs(JNIEnv* env, int length, char** args) {
+    jclass stringClass = (*env)->FindClass(env, "java/lang/String");
+    if (stringClass == NULL) {
+        PRINT_ERROR("Failed to find java/lang/String class");
+        return NULL;
+    }
+
+    jobjectArray javaArgs = (*env)->NewObjectArray(env, length, stringClass, NULL);
+    if (javaArgs == NULL) {
+        PRINT_ERROR("Failed to create String array");
+        (*env)->DeleteLocalRef(env, stringClass);
+        return NULL;
+    }
+
+    PRINT_DEBUG("Creating Java args[%d]", length);
+    for (int i = 0; i < length; i++) {
+        PRINT_DEBUG("  args[%d]=%s", i, args[i]);
+        jstring str = (*env)->NewStringUTF(env, args[i]);
+        if (str == NULL) {
+            PRINT_ERROR("Failed to create string for argument %d", i);
+            (*env)->DeleteLocalRef(env, javaArgs);
+            (*env)->DeleteLocalRef(env, stringClass);
+            return NULL;
+        }
+        (*env)->SetObjectArrayElement(env, javaArgs, i, str);
+        (*env)->DeleteLocalRef(env, str);
+    }
+    (*env)->DeleteLocalRef(env, stringClass);
+    return javaArgs;
+}
+
+// Hands all args to Java as a single direct buffer of null-terminated UTF-8 strings
+// that gets decoded by the generated LauncherArgs class. Returns NULL if the decoder
+// is not available, so that the caller can fall back to the per-argument conversion.
+static jobjectArray newJavaArgsBulk(JNIEnv* env, const char* decoderName, int length, char** args) {
+    jclass decoderClass = decoderName == NULL ? NULL : (*env)->FindClass(env, decoderName);
+    jmethodID decode = decoderClass == NULL ? NULL : (*env)->GetStaticMethodID(env, decoderClass,
+        "decode", "(Ljava/nio/ByteBuffer;I)[Ljava/lang/String;");
+    if (decode == NULL) {
+        PRINT_DEBUG("LauncherArgs is not available. Falling back to individual args.");
+        (*env)->ExceptionClear(env);
+        (*env)->DeleteLocalRef(env, decoderClass);
+        return NULL;
+    }
+
+    size_t size = 0;
+    for (int i = 0; i < length; i++) {
+        size += strlen(args[i]) + 1;
+    }
+    char* block = (char*)malloc(size > 0 ? size : 1);
+    checkNotNull(block);
+    char* position = block;
+    for (int i = 0; i < length; i++) {
+        size_t argSize = strlen(args[i]) + 1;
+        memcpy(position, args[i], argSize);
+        position += argSize;
+    }
+
+    PRINT_DEBUG("Creating Java args[%d] from %zu bytes", length, size);
+    jobjectArray javaArgs = NULL;
+    jobject buffer = (*env)->NewDirectByteBuffer(env, block, (jlong)size);
+    if (buffer != NULL) {
+        javaArgs = (jobjectArray)(*env)->CallStaticObjectMethod(env, decoderClass, decode, buffer, (jint)length);
+    }
+    if ((*env)->ExceptionCheck(env)) {
+        (*env)->ExceptionDescribe(env);
+        (*env)->ExceptionClear(env);
+        javaArgs = NULL;
+    }
+    (*env)->DeleteLocalRef(env, buffer);
+    (*env)->DeleteLocalRef(env, decoderClass);
+    free(block); // the decoder copies the contents
+    return javaArgs;
+}
+
+static int getBulkArgsThreshold(const LauncherConfig* config) {
+    const char* value = getenv("LAUNCHER_BULK_ARGS");
+    return value != NULL && value[0] != '\0' ? atoi(value) : config->bulkArgsThreshold;
+}
+
+static int callJavaMain(LauncherVM* vm, int argc, char** argv) {
+    JNIEnv* env = vm->env;
+    const LauncherConfig* config = vm->config;
+
+    // Convert C args to Java String[]. Java omits the program name (argv[0])
+    traceBegin();
+    int arrayLength = (argc > 0) ? argc - 1 : 0;
+    int bulkArgsThreshold = getBulkArgsThreshold(config);
+    jobjectArray javaArgs = NULL;
+    if (bulkArgsThreshold > 0 && arrayLength >= bulkArgsThreshold) {
+        javaArgs = newJavaArgsBulk(env, config->argsDecoder, arrayLength, argv + 1);
+    }
+    if (javaArgs == NULL) {
+        javaArgs = newJavaArgs(env, arrayLength, argv + 1);
+    }
+    if (javaArgs == NULL) {
+        return 1;
+    }
+    traceEnd(PHASE_ARGS);
+
+    // Load main class via reflection
+    traceBegin();
+    char internalClassName[512];
+    snprintf(internalClassName, sizeof(internalClassName), "%s", config->mainClass);
+    for (int i = 0; internalClassName[i]; i++) {
+        if (internalClassName[i] == '.') {
+            internalClassName[i] = '/';
+        }
+    }
+
+    PRINT_DEBUG("Loading class: %s", internalClassName);
+    jclass mainClass = (*env)->FindClass(env, internalClassName);
+    if (mainClass == NULL) {
+        PRINT_ERROR("Failed to find main class: %s", internalClassName);
+        (*env)->DeleteLocalRef(env, javaArgs);
+        return 1;
+    }
+
+    // Find main method: public static void main(String[])
+    PRINT_DEBUG("Looking up method: main([Ljava/lang/String;)V");
+    jmethodID mainMethod = (*env)->GetStaticMethodID(env, mainClass, "main", "([Ljava/lang/String;)V");
+    if (mainMethod == NULL) {
+        PRINT_ERROR("Failed to find main method in %s. Ensure the signature matches public static void main(String[])", config->mainClass);
+        if ((*env)->ExceptionCheck(env)) {
+            (*env)->ExceptionDescribe(env);
+            (*env)->ExceptionClear(env);
+        }
+        (*env)->DeleteLocalRef(env, javaArgs);
+        (*env)->DeleteLocalRef(env, mainClass);
+        return 1;
+    }
+
+    traceEnd(PHASE_LOOKUP);
+    traceSetProperties(env, PHASE_LOOKUP);
+
+    // Call the main method
+    PRINT_DEBUG("Invoking main method for %s", config->mainClass);
+    traceBegin();
+    (*env)->CallStaticVoidMethod(env, mainClass, mainMethod, javaArgs);
+    traceEnd(PHASE_MAIN);
+    traceClose();
+
+    // Check for exceptions
+    jint exitCode = 0;
+    if ((*env)->ExceptionCheck(env)) {
+        PRINT_ERROR("Exception occurred during main method execution");
+        (*env)->ExceptionDescribe(env);
+        (*env)->ExceptionClear(env);
+        exitCode = 1;
+    }
+
+    // Cleanup
+    (*env)->DeleteLocalRef(env, javaArgs);
+    (*env)->DeleteLocalRef(env, mainClass);
+
+    return exitCode;
+}
+
+// =========== DIRECT ENTRY POINT ===========
+// Calls a generated @CEntryPoint that receives the raw arguments and applies the
+// system properties on the Java side. All other options get passed to the isolate.
+// This skips creating a JNI environment as well as the reflective lookups of the main
+// class and method.
+static int createIsolate(LauncherVM* vm, void* handle, JavaVMOption* options, int nOptions) {
+    const LinkedSymbols* linked = vm->config->linked;
+    CreateIsolate_Func createIsolate = (CreateIsolate_Func)bindSymbol(handle,
+        linked != NULL ? linked->createIsolate : NULL, "graal_create_isolate");
+    vm->entryPoint = (EntryPoint_Func)bindSymbol(handle,
+        linked != NULL ? linked->entryPoint : NULL, vm->config->entryPoint);
+    bindEnd(vm->config);
+
+    // Runtime options such as -Xmx, -Xmn, or -XX:ActiveProcessorCount get parsed by the
+    // isolate. System properties can only be set after it exists.
+    char** runtimeOptions = (char**)calloc(nOptions + 1, sizeof(char*));
+    checkNotNull(runtimeOptions);
+    int nRuntimeOptions = 0;
+    runtimeOptions[nRuntimeOptions++] = (char*)vm->config->name;
+    for (int i = 0; i < nOptions; i++) {
+        if (strncmp(options[i].optionString, "-D", 2) != 0) {
+            runtimeOptions[nRuntimeOptions++] = options[i].optionString;
+        }
+    }
+    IsolateParams params;
+    memset(&params, 0, sizeof(params));
+    params.version = 4;
+    params.argc = nRuntimeOptions;
+    params.argv = runtimeOptions;
+    params.ignoreUnrecognizedArguments = 0;
+    params.exitWhenArgumentParsingFails = 0;
+
+    traceBegin();
+    void* isolate = NULL;
+    int result = createIsolate(&params, &isolate, &vm->thread);
+    free(runtimeOptions);
+    if (result != 0) {
+        PRINT_ERROR("Failed to create GraalVM isolate (error %d)", result);
+        return 1;
+    }
+    traceEnd(PHASE_CREATE_VM);
+
+    // Forward copies of the system properties and the startup timings
+    vm->options = (char**)calloc(nOptions + NUM_PHASES, sizeof(char*));
+    checkNotNull(vm->options);
+    for (int i = 0; i < nOptions; i++) {
+        if (strncmp(options[i].optionString, "-D", 2) == 0) {
+            vm->options[vm->nOptions++] = strdup(options[i].optionString);
+        }
+    }
+    if (traceFile != NULL) {
+        char timing[64];
+        for (int i = 0; i <= PHASE_CREATE_VM; i++) {
+            snprintf(timing, sizeof(timing), "-Dlauncher.startup.%s=%llu", phaseNames[i], phaseDurations[i]);
+            vm->options[vm->nOptions++] = strdup(timing);
+        }
+    }
+    return 0;
+}
+
+static int callEntryPoint(LauncherVM* vm, int argc, char** argv) {
+    PRINT_DEBUG("Invoking entry point %s for %s", vm->config->entryPoint, vm->config->mainClass);
+    traceBegin();
+    int exitCode = vm->entryPoint(vm->thread, vm->nOptions, vm->options, argc, argv);
+    traceEnd(PHASE_MAIN);
+    traceClose();
+    return exitCode;
+}
+
+static int callMain(LauncherVM* vm, int argc, char** argv) {
+    return vm->entryPoint != NULL ? callEntryPoint(vm, argc, argv) : callJavaMain(vm, argc, argv);
+}
+
+// Flushes buffered output before halting, and between daemon requests
+static void flushJavaStreams(LauncherVM* vm) {
+    fflush(stdout);
+    fflush(stderr);
+    if (vm->env == NULL) return; // flushed by the generated @CEntryPoint
+    JNIEnv* env = vm->env;
+    jclass systemClass = (*env)->FindClass(env, "java/lang/System");
+    const char* streams[] = { "out", "err" };
+    for (int i = 0; systemClass != NULL && i < 2; i++) {
+        jfieldID field = (*env)->GetStaticFieldID(env, systemClass, streams[i], "Ljava/io/PrintStream;");
+        jobject stream = field == NULL ? NULL : (*env)->GetStaticObjectField(env, systemClass, field);
+        if (stream == NULL) continue;
+        jclass streamClass = (*env)->GetObjectClass(env, stream);
+        jmethodID flush = (*env)->GetMethodID(env, streamClass, "flush", "()V");
+        if (flush != NULL) {
+            (*env)->CallVoidMethod(env, stream, flush);
+        }
+        (*env)->DeleteLocalRef(env, streamClass);
+        (*env)->DeleteLocalRef(env, stream);
+    }
+    if ((*env)->ExceptionCheck(env)) {
+        (*env)->ExceptionClear(env);
+    }
+    (*env)->DeleteLocalRef(env, systemClass);
+}
+
+// Applies the configured exit mode after the main method returned
+static int exitLauncherVM(LauncherVM* vm, int exitCode) {
+    switch (vm->config->exitMode) {
+        case EXIT_MODE_DESTROY:
+            // Blocks until all non-daemon threads are done
+            PRINT_DEBUG("Waiting for non-daemon threads");
+            if (vm->javaVM != NULL) {
+                (*vm->javaVM)->DestroyJavaVM(vm->javaVM);
+            } else if (vm->thread != NULL) {
+                const LinkedSymbols* linked = vm->config->linked;
+                TearDownIsolate_Func tearDownIsolate = (TearDownIsolate_Func)bindSymbol(vm->library,
+                    linked != NULL ? linked->tearDownIsolate : NULL, "graal_tear_down_isolate");
+                tearDownIsolate(vm->thread);
+            }
+            vm->javaVM = NULL;
+            vm->env = NULL;
+            vm->thread = NULL;
+            return exitCode;
+        case EXIT_MODE_HALT:
+            // Skips the teardown as well as any exit handlers
+            PRINT_DEBUG("Halting with exit code %d", exitCode);
+            flushJavaStreams(vm);
+            _exit(exitCode);
+        default:
+            return exitCode;
+    }
+}
+
+static void destroyLauncherVM(LauncherVM* vm) {
+    for (int i = 0; i < vm->nOptions; i++) {
+        free(vm->options[i]);
+    }
+    free(vm->options);
+}
+
+// =========== DAEMON MODE ===========
+// A daemon is a detached copy of the launcher that keeps the isolate warm and
+// serves requests on a per-user Unix domain socket. The client forwards argv,
+// cwd, env, and its stdin/stdout/stderr file descriptors, and then waits for
+// the exit code. Requests get executed one after the other. System.exit() ends
+// the daemon after reporting the exit code, so the next call starts a new one.
+//
+// Java caches the environment and the working directory at startup, so each
+// request sets 'user.dir' and exposes the client environment as 'launcher.env.*'
+// system properties. System.getenv() keeps returning the environment of the
+// daemon. Ctrl-C and SIGTERM of the client get forwarded to the daemon once it
+// started the request, which ends the daemon. Static state is shared between
+// requests, so launchers that depend on a fresh VM need to disable the daemon.
+#if defined(__linux__) && defined(__GLIBC__)
+#define LAUNCHER_DAEMON_SUPPORTED
+#endif
+
+#ifdef LAUNCHER_DAEMON_SUPPORTED
+#include <errno.h>
+#include <fcntl.h>
+#include <poll.h>
+#include <signal.h>
+#include <stdint.h>
+#include <sys/file.h>
+#include <sys/socket.h>
+#include <sys/stat.h>
+#include <sys/un.h>
+#include <sys/wait.h>
+
+extern char** environ;
+
+#define DAEMON_MAGIC 0x4c4e4348     // 'LNCH'
+#define DAEMON_REJECTED -1          // outdated daemon, run in-process instead
+#define DAEMON_NO_REPLY -2          // invalid request
+#define DAEMON_STARTED -3           // sent before running main, followed by the exit code
+#define DAEMON_MAX_PAYLOAD (64 * 1024 * 1024)
+
+typedef struct {
+    uint32_t magic;
+    uint32_t argc;
+    uint32_t envc;
+    uint32_t payloadSize;           // cwd, args, and env as null-terminated strings
+    int64_t version;                // modification time of the executable
+} DaemonRequest;
+
+static int daemonServer = 0;        // whether this process is the daemon
+static int daemonListener = -1;
+static int daemonClient = -1;       // connection of the currently running request
+static int64_t daemonVersion = 0;
+static char daemonSocketPath[sizeof(((struct sockaddr_un*)0)->sun_path)];
+static char daemonLockPath[PATH_MAX];
+static char* daemonEnvKeys = NULL;  // properties of the previous request (JNI)
+static size_t daemonEnvKeysSize = 0;
+
+// Signals of the client get forwarded once the daemon runs the request
+static volatile sig_atomic_t daemonPid = 0;
+static volatile sig_atomic_t daemonStarted = 0;
+static volatile sig_atomic_t daemonSignal = 0;
+
+static void daemonForwardSignal(int signal) {
+    daemonSignal = signal;
+    if (daemonStarted && daemonPid > 0) {
+        kill((pid_t)daemonPid, signal);
+    }
+}
+
+static int writeFully(int fd, const void* data, size_t length) {
+    const char* bytes = (const char*)data;
+    while (length > 0) {
+        ssize_t n = send(fd, bytes, length, MSG_NOSIGNAL);
+        if (n < 0 && errno == EINTR) continue;
+        if (n <= 0) return 0;
+        bytes += n;
+        length -= n;
+    }
+    return 1;
+}
+
+static int readFully(int fd, void* data, size_t length) {
+    char* bytes = (char*)data;
+    while (length > 0) {
+        ssize_t n = read(fd, bytes, length);
+        if (n < 0 && errno == EINTR) continue;
+        if (n <= 0) return 0;
+        bytes += n;
+        length -= n;
+    }
+    return 1;
+}
+
+// Determines the socket of the daemon, or returns 0 if the launcher should run in-process
+static int daemonInit(const LauncherConfig* config, const char* exePath) {
+    const char* mode = getenv("LAUNCHER_DAEMON");
+    if (config->daemonIdleTimeout <= 0 || exePath == NULL || (mode != NULL && strcmp(mode, "0") == 0)) {
+        return 0;
+    }
+
+    // Daemons of older builds reject requests
+    struct stat info;
+    if (stat(exePath, &info) != 0) {
+        return 0;
+    }
+    daemonVersion = (int64_t)info.st_mtim.tv_sec * 1000000000LL + info.st_mtim.tv_nsec;
+
+    // The directory must only be accessible by the current user
+    char dir[PATH_MAX];
+    const char* runtimeDir = getenv("XDG_RUNTIME_DIR");
+    if (runtimeDir != NULL && runtimeDir[0] != '\0') {
+        snprintf(dir, sizeof(dir), "%s/native-launchers", runtimeDir);
+    } else {
+        snprintf(dir, sizeof(dir), "/tmp/native-launchers-%d", (int)getuid());
+    }
+    if (mkdir(dir, 0700) != 0 && errno != EEXIST) {
+        return 0;
+    }
+    if (lstat(dir, &info) != 0 || !S_ISDIR(info.st_mode) || info.st_uid != getuid() || (info.st_mode & 077) != 0) {
+        PRINT_ERROR("Daemon directory %s is not private. Running in-process.", dir);
+        return 0;
+    }
+
+    // Multiple installations of the same launcher are distinguished by a hash (FNV-1a) of the path
+    unsigned long long hash = 14695981039346656037ULL;
+    for (const char* c = exePath; *c; c++) {
+        hash = (hash ^ (unsigned char)*c) * 1099511628211ULL;
+    }
+    int length = snprintf(daemonSocketPath, sizeof(daemonSocketPath), "%s/%s-%016llx.sock", dir, config->name, hash);
+    if (length < 0 || length >= (int)sizeof(daemonSocketPath)) {
+        PRINT_DEBUG("Daemon socket path is too long. Running in-process.");
+        return 0;
+    }
+    snprintf(daemonLockPath, sizeof(daemonLockPath), "%s/%s-%016llx.lock", dir, config->name, hash);
+    return 1;
+}
+
+static int daemonSendRequest(int fd, int argc, char** argv) {
+    char cwd[PATH_MAX];
+    if (getcwd(cwd, sizeof(cwd)) == NULL) {
+        return 0;
+    }
+
+    // Serialize everything into a single buffer of null-terminated strings
+    size_t payloadSize = strlen(cwd) + 1;
+    for (int i = 0; i < argc; i++) {
+        payloadSize += strlen(argv[i]) + 1;
+    }
+    int envc = 0;
+    for (char** env = environ; *env != NULL; env++, envc++) {
+        payloadSize += strlen(*env) + 1;
+    }
+    if (payloadSize > DAEMON_MAX_PAYLOAD) {
+        return 0;
+    }
+    char* payload = (char*)malloc(payloadSize);
+    checkNotNull(payload);
+    char* position = payload;
+    position = stpcpy(position, cwd) + 1;
+    for (int i = 0; i < argc; i++) {
+        position = stpcpy(position, argv[i]) + 1;
+    }
+    for (int i = 0; i < envc; i++) {
+        position = stpcpy(position, environ[i]) + 1;
+    }
+
+    // Pass stdin/stdout/stderr along with the header
+    DaemonRequest request = { DAEMON_MAGIC, (uint32_t)argc, (uint32_t)envc, (uint32_t)payloadSize, daemonVersion };
+    int fds[3] = { STDIN_FILENO, STDOUT_FILENO, STDERR_FILENO };
+    char control[CMSG_SPACE(sizeof(fds))];
+    memset(control, 0, sizeof(control));
+    struct iovec iov = { &request, sizeof(request) };
+    struct msghdr msg;
+    memset(&msg, 0, sizeof(msg));
+    msg.msg_iov = &iov;
+    msg.msg_iovlen = 1;
+    msg.msg_control = control;
+    msg.msg_controllen = sizeof(control);
+    struct cmsghdr* cmsg = CMSG_FIRSTHDR(&msg);
+    cmsg->cmsg_level = SOL_SOCKET;
+    cmsg->cmsg_type = SCM_RIGHTS;
+    cmsg->cmsg_len = CMSG_LEN(sizeof(fds));
+    memcpy(CMSG_DATA(cmsg), fds, sizeof(fds));
+
+    int sent = sendmsg(fd, &msg, MSG_NOSIGNAL) == sizeof(request) && writeFully(fd, payload, payloadSize);
+    free(payload);
+    return sent;
+}
+
+// Forwards the call to a running daemon. Returns 0 if there is no daemon that can handle it.
+static int daemonCall(int argc, char** argv, int* exitCode) {
+    int fd = socket(AF_UNIX, SOCK_STREAM | SOCK_CLOEXEC, 0);
+    if (fd < 0) {
+        return 0;
+    }
+    struct sockaddr_un address;
+    memset(&address, 0, sizeof(address));
+    address.sun_family = AF_UNIX;
+    strcpy(address.sun_path, daemonSocketPath);
+    if (connect(fd, (struct sockaddr*)&address, sizeof(address)) != 0 || !daemonSendRequest(fd, argc, argv)) {
+        PRINT_DEBUG("No daemon available at %s", daemonSocketPath);
+        close(fd);
+        return 0;
+    }
+
+    struct ucred peer;
+    socklen_t peerSize = sizeof(peer);
+    if (getsockopt(fd, SOL_SOCKET, SO_PEERCRED, &peer, &peerSize) == 0) {
+        daemonPid = peer.pid;
+    }
+    struct sigaction action;
+    memset(&action, 0, sizeof(action));
+    action.sa_handler = daemonForwardSignal;
+    sigemptyset(&action.sa_mask);
+    sigaction(SIGINT, &action, NULL);
+    sigaction(SIGTERM, &action, NULL);
+
+    int32_t status = 0;
+    int received = readFully(fd, &status, sizeof(status));
+    if (received && status == DAEMON_STARTED) {
+        daemonStarted = 1;
+        if (daemonSignal != 0) {
+            kill((pid_t)daemonPid, daemonSignal);
+        }
+        received = readFully(fd, &status, sizeof(status));
+    }
+    close(fd);
+    if (!received && daemonSignal != 0) {
+        // Terminated by the forwarded signal
+        *exitCode = 128 + daemonSignal;
+        return 1;
+    } else if (!received) {
+        // The request may have been partially executed, so it can't be repeated in-process
+        PRINT_ERROR("Daemon terminated unexpectedly");
+        *exitCode = 1;
+        return 1;
+    } else if (status == DAEMON_REJECTED) {
+        PRINT_DEBUG("Daemon belongs to an older build");
+        return 0;
+    }
+    *exitCode = status;
+    return 1;
+}
+
+// Forks a detached daemon process that continues with the startup and then serves
+// requests instead of running main. The original process continues in-process.
+static void daemonSpawn() {
+    pid_t pid = fork();
+    if (pid < 0) {
+        return;
+    } else if (pid > 0) {
+        waitpid(pid, NULL, 0);
+        return;
+    }
+
+    // Detach from the terminal and let init adopt the daemon
+    setsid();
+    if (fork() != 0) {
+        _exit(0);
+    }
+    int devNull = open("/dev/null", O_RDWR);
+    dup2(devNull, STDIN_FILENO);
+    dup2(devNull, STDOUT_FILENO);
+    dup2(devNull, STDERR_FILENO);
+    if (devNull > STDERR_FILENO) {
+        close(devNull);
+    }
+    traceFile = NULL;
+
+    // Only a single daemon may own the socket
+    int lock = open(daemonLockPath, O_RDWR | O_CREAT | O_CLOEXEC, 0600);
+    if (lock < 0 || flock(lock, LOCK_EX | LOCK_NB) != 0) {
+        _exit(0);
+    }
+    unlink(daemonSocketPath);
+    struct sockaddr_un address;
+    memset(&address, 0, sizeof(address));
+    address.sun_family = AF_UNIX;
+    strcpy(address.sun_path, daemonSocketPath);
+    daemonListener = socket(AF_UNIX, SOCK_STREAM | SOCK_CLOEXEC, 0);
+    if (daemonListener < 0
+        || bind(daemonListener, (struct sockaddr*)&address, sizeof(address)) != 0
+        || listen(daemonListener, 64) != 0) {
+        _exit(0);
+    }
+    daemonServer = 1;
+}
+
+// Reports the exit code of System.exit() and removes the socket
+static void daemonOnExit(int status, void* arg) {
+    if (daemonClient >= 0) {
+        int32_t exitCode = status;
+        writeFully(daemonClient, &exitCode, sizeof(exitCode));
+    }
+    unlink(daemonSocketPath);
+}
+
+static char* daemonFormatProperty(const char* prefix, const char* key, size_t keyLength, const char* value) {
+    size_t length = strlen(prefix) + keyLength + 1 + strlen(value) + 1;
+    char* option = (char*)malloc(length);
+    checkNotNull(option);
+    snprintf(option, length, "%s%.*s=%s", prefix, (int)keyLength, key, value);
+    return option;
+}
+
+// Appends 'user.dir' and the client environment to the system properties of the @CEntryPoint
+static char** daemonGetOptions(LauncherVM* vm, const char* cwd, char** env, int* nOptions) {
+    int envc = 0;
+    while (env[envc] != NULL) envc++;
+    char** options = (char**)calloc(vm->nOptions + 1 + envc, sizeof(char*));
+    checkNotNull(options);
+    memcpy(options, vm->options, vm->nOptions * sizeof(char*));
+    int count = vm->nOptions;
+    options[count++] = daemonFormatProperty("-D", "user.dir", strlen("user.dir"), cwd);
+    for (int i = 0; i < envc; i++) {
+        const char* separator = strchr(env[i], '=');
+        if (separator == NULL) continue;
+        options[count++] = daemonFormatProperty("-Dlauncher.env.", env[i], separator - env[i], separator + 1);
+    }
+    *nOptions = count;
+    return options;
+}
+
+static void daemonCallProperty(JNIEnv* env, jclass systemClass, jmethodID method, const char* key, const char* value) {
+    jstring jKey = (*env)->NewStringUTF(env, key);
+    jstring jValue = value == NULL ? NULL : (*env)->NewStringUTF(env, value);
+    jobject previous = value == NULL
+        ? (*env)->CallStaticObjectMethod(env, systemClass, method, jKey)
+        : (*env)->CallStaticObjectMethod(env, systemClass, method, jKey, jValue);
+    (*env)->DeleteLocalRef(env, previous);
+    (*env)->DeleteLocalRef(env, jKey);
+    (*env)->DeleteLocalRef(env, jValue);
+}
+
+// Sets 'user.dir' and replaces the 'launcher.env.*' properties of the previous request
+static void daemonSetProperties(JNIEnv* env, const char* cwd, char** clientEnv) {
+    jclass systemClass = (*env)->FindClass(env, "java/lang/System");
+    jmethodID setProperty = systemClass == NULL ? NULL : (*env)->GetStaticMethodID(env, systemClass,
+        "setProperty", "(Ljava/lang/String;Ljava/lang/String;)Ljava/lang/String;");
+    jmethodID clearProperty = systemClass == NULL ? NULL : (*env)->GetStaticMethodID(env, systemClass,
+        "clearProperty", "(Ljava/lang/String;)Ljava/lang/String;");
+    if (setProperty == NULL || clearProperty == NULL) {
+        PRINT_ERROR("Failed to find System.setProperty. Client properties are not available.");
+        (*env)->ExceptionClear(env);
+        return;
+    }
+
+    for (size_t offset = 0; offset < daemonEnvKeysSize; offset += strlen(daemonEnvKeys + offset) + 1) {
+        daemonCallProperty(env, systemClass, clearProperty, daemonEnvKeys + offset, NULL);
+    }
+    daemonCallProperty(env, systemClass, setProperty, "user.dir", cwd);
+
+    // Keys are stored back to back, so they can be cleared on the next request
+    size_t capacity = 0;
+    for (char** variable = clientEnv; *variable != NULL; variable++) {
+        capacity += sizeof("launcher.env.") + strlen(*variable);
+    }
+    free(daemonEnvKeys);
+    daemonEnvKeys = (char*)malloc(capacity + 1);
+    checkNotNull(daemonEnvKeys);
+    char* key = daemonEnvKeys;
+    for (char** variable = clientEnv; *variable != NULL; variable++) {
+        const char* separator = strchr(*variable, '=');
+        if (separator == NULL) continue;
+        snprintf(key, capacity + 1 - (key - daemonEnvKeys), "launcher.env.%.*s", (int)(separator - *variable), *variable);
+        daemonCallProperty(env, systemClass, setProperty, key, separator + 1);
+        key += strlen(key) + 1;
+    }
+    daemonEnvKeysSize = key - daemonEnvKeys;
+
+    if ((*env)->ExceptionCheck(env)) {
+        (*env)->ExceptionClear(env);
+    }
+    (*env)->DeleteLocalRef(env, systemClass);
+}
+
+static int daemonHandleRequest(LauncherVM* vm, int client) {
+    // Receive the header along with the stdin/stdout/stderr of the client
+    DaemonRequest request;
+    int fds[3] = { -1, -1, -1 };
+    char control[CMSG_SPACE(sizeof(fds))];
+    struct iovec iov = { &request, sizeof(request) };
+    struct msghdr msg;
+    memset(&msg, 0, sizeof(msg));
+    msg.msg_iov = &iov;
+    msg.msg_iovlen = 1;
+    msg.msg_control = control;
+    msg.msg_controllen = sizeof(control);
+    ssize_t n = recvmsg(client, &msg, MSG_CMSG_CLOEXEC);
+    struct cmsghdr* cmsg = CMSG_FIRSTHDR(&msg);
+    if (cmsg != NULL && cmsg->cmsg_level == SOL_SOCKET && cmsg->cmsg_type == SCM_RIGHTS
+        && cmsg->cmsg_len == CMSG_LEN(sizeof(fds))) {
+        memcpy(fds, CMSG_DATA(cmsg), sizeof(fds));
+    }
+
+    int status = DAEMON_NO_REPLY;
+    char* payload = NULL;
+    char** strings = NULL;
+    if (n != sizeof(request) || request.magic != DAEMON_MAGIC || fds[2] < 0
+        || request.payloadSize == 0 || request.payloadSize > DAEMON_MAX_PAYLOAD) {
+        goto cleanup;
+    } else if (request.version != daemonVersion) {
+        status = DAEMON_REJECTED;
+        goto cleanup;
+    }
+
+    // Split the payload into cwd, argv, and env (each array is null-terminated)
+    payload = (char*)malloc(request.payloadSize);
+    size_t numStrings = 1 + (size_t)request.argc + 1 + (size_t)request.envc + 1;
+    strings = (char**)calloc(numStrings, sizeof(char*));
+    if (payload == NULL || strings == NULL || !readFully(client, payload, request.payloadSize)
+        || payload[request.payloadSize - 1] != '\0') {
+        goto cleanup;
+    }
+    char* position = payload;
+    char* end = payload + request.payloadSize;
+    for (size_t i = 0; i < numStrings; i++) {
+        if (i == 1 + request.argc || i == numStrings - 1) continue; // array terminators
+        if (position >= end) goto cleanup;
+        strings[i] = position;
+        position += strlen(position) + 1;
+    }
+    char* cwd = strings[0];
+    char** argv = strings + 1;
+    char** env = strings + 1 + request.argc + 1;
+
+    // Act like the client process while running main. Native code sees the client
+    // environment, and Java gets it via system properties.
+    char** daemonEnv = environ;
+    environ = env;
+    dup2(fds[0], STDIN_FILENO);
+    dup2(fds[1], STDOUT_FILENO);
+    dup2(fds[2], STDERR_FILENO);
+    if (chdir(cwd) != 0) {
+        PRINT_ERROR("Could not change the working directory to %s", cwd);
+    }
+    daemonClient = client;
+    int32_t started = DAEMON_STARTED;
+    writeFully(client, &started, sizeof(started));
+
+    int nOptions = vm->nOptions;
+    char** options = vm->options;
+    if (vm->env != NULL) {
+        daemonSetProperties(vm->env, cwd, env);
+    } else {
+        // The generated @CEntryPoint applies the properties and removes old 'launcher.env.*' values
+        vm->options = daemonGetOptions(vm, cwd, env, &vm->nOptions);
+    }
+
+    status = callMain(vm, (int)request.argc, argv);
+    flushJavaStreams(vm);
+
+    if (vm->options != options) {
+        for (int i = nOptions; i < vm->nOptions; i++) {
+            free(vm->options[i]);
+        }
+        free(vm->options);
+        vm->options = options;
+        vm->nOptions = nOptions;
+    }
+    daemonClient = -1;
+    environ = daemonEnv;
+    int devNull = open("/dev/null", O_RDWR);
+    dup2(devNull, STDIN_FILENO);
+    dup2(devNull, STDOUT_FILENO);
+    dup2(devNull, STDERR_FILENO);
+    close(devNull);
+
+    cleanup:
+    for (int i = 0; i < 3; i++) {
+        if (fds[i] >= 0) close(fds[i]);
+    }
+    free(strings);
+    free(payload);
+    return status;
+}
+
+static int daemonServe(LauncherVM* vm) {
+    PRINT_DEBUG("Daemon listening on %s", daemonSocketPath);
+    on_exit(daemonOnExit, NULL);
+    signal(SIGPIPE, SIG_IGN);
+    signal(SIGHUP, SIG_IGN);
+
+    int timeoutMillis = vm->config->daemonIdleTimeout > INT32_MAX / 1000 ? -1 : vm->config->daemonIdleTimeout * 1000;
+    for (;;) {
+        struct pollfd listener = { daemonListener, POLLIN, 0 };
+        int ready = poll(&listener, 1, timeoutMillis);
+        if (ready < 0 && errno == EINTR) {
+            continue;
+        } else if (ready <= 0) {
+            break; // idle timeout
+        }
+
+        int client = accept4(daemonListener, NULL, NULL, SOCK_CLOEXEC);
+        if (client < 0) continue;
+        int32_t status = daemonHandleRequest(vm, client);
+        if (status != DAEMON_NO_REPLY) {
+            writeFully(client, &status, sizeof(status));
+        }
+        close(client);
+        if (status == DAEMON_REJECTED) {
+            break; // a newer build got installed
+        }
+    }
+    PRINT_DEBUG("Shutting down daemon");
+    close(daemonListener);
+    return 0;
+}
+#endif
+
+// =========== BATCH MODE ===========
+// Runs one invocation per record of a batch input (LAUNCHER_BATCH=<file>, or '-' for stdin)
+// inside the same isolate. Records are lines (or NUL-terminated if LAUNCHER_BATCH_DELIMITER
+// is 'nul') that get split into arguments the same way as <NAME>_OPTS. If LAUNCHER_BATCH_OUTPUT
+// is set to a directory, each record writes its output to '<n>.out' and '<n>.err' and its exit
+// code to the 'status' file. Otherwise all records share the output streams. Launchers
+// need to opt in, so that an inherited variable does not affect unrelated launchers.
+// System.exit() ends the batch, which gets reported for the record that called it.
+#if !defined(_WIN32) && !defined(_WIN64)
+#define LAUNCHER_BATCH_SUPPORTED
+#endif
+
+#ifdef LAUNCHER_BATCH_SUPPORTED
+static char* batchInput = NULL;
+static char* batchOutput = NULL;
+static int batchDelimiter = '\n';
+static int batchRecord = 0;         // record that is currently running, or 0
+static FILE* batchStatus = NULL;
+static int batchSavedErr = -1;
+
+// Reads the settings and removes them from the environment, so that child processes don't inherit them
+static int batchInit(const LauncherConfig* config) {
+    const char* input = getenv("LAUNCHER_BATCH");
+    if (input == NULL || input[0] == '\0') {
+        return 0;
+    } else if (!config->batch) {
+        PRINT_DEBUG("Ignoring LAUNCHER_BATCH because batch mode is not enabled for %s", config->name);
+        return 0;
+    }
+    batchInput = strdup(input);
+    const char* output = getenv("LAUNCHER_BATCH_OUTPUT");
+    batchOutput = output != NULL && output[0] != '\0' ? strdup(output) : NULL;
+    const char* delimiter = getenv("LAUNCHER_BATCH_DELIMITER");
+    batchDelimiter = delimiter != NULL && strcmp(delimiter, "nul") == 0 ? '\0' : '\n';
+    unsetenv("LAUNCHER_BATCH");
+    unsetenv("LAUNCHER_BATCH_OUTPUT");
+    unsetenv("LAUNCHER_BATCH_DELIMITER");
+    PRINT_DEBUG("Running in batch mode with input %s", batchInput);
+    return batchInput != NULL;
+}
+
+static FILE* batchOpenInput() {
+    if (strcmp(batchInput, "-") != 0) {
+        return fopen(batchInput, "r");
+    }
+
+    // Keep the records from consuming the batch input
+    FILE* input = fdopen(dup(STDIN_FILENO), "r");
+    int devNull = open("/dev/null", O_RDONLY);
+    if (devNull >= 0) {
+        dup2(devNull, STDIN_FILENO);
+        close(devNull);
+    }
+    return input;
+}
+
+static void batchRedirect(int record, const char* suffix, int fd) {
+    size_t pathSize = strlen(batchOutput) + 32;
+    char* path = (char*)malloc(pathSize);
+    checkNotNull(path);
+    snprintf(path, pathSize, "%s/%d.%s", batchOutput, record, suffix);
+    int file = open(path, O_WRONLY | O_CREAT | O_TRUNC, 0666);
+    if (file < 0) {
+        PRINT_ERROR("Could not open batch output: %s", path);
+    } else {
+        dup2(file, fd);
+        close(file);
+    }
+    free(path);
+}
+
+// Reports records that called System.exit(), which ends the whole batch
+static void batchReportExit(int exitCode) {
+    if (batchRecord <= 0) return;
+    if (batchStatus != NULL) {
+        fprintf(batchStatus, "%d %d exit\n", batchRecord, exitCode);
+        fflush(batchStatus);
+    }
+    if (batchSavedErr >= 0) {
+        dup2(batchSavedErr, STDERR_FILENO);
+    }
+    PRINT_ERROR("Batch record %d called System.exit(%d). The remaining records were not processed.", batchRecord, exitCode);
+}
+
+#ifdef __GLIBC__
+static void batchOnExit(int status, void* arg) {
+    batchReportExit(status);
+}
+#else
+static void batchOnExit() {
+    batchReportExit(-1); // the exit code is not available
+}
+#endif
+
+// Returns 0 if all records succeeded
+static int batchServe(LauncherVM* vm, char* programName) {
+    FILE* input = batchOpenInput();
+    if (input == NULL) {
+        PRINT_ERROR("Could not open batch input: %s", batchInput);
+        return 1;
+    }
+
+    FILE* status = NULL;
+    int savedOut = -1;
+    int savedErr = -1;
+    if (batchOutput != NULL) {
+        mkdir(batchOutput, 0777);
+        size_t pathSize = strlen(batchOutput) + sizeof("/status");
+        char* path = (char*)malloc(pathSize);
+        checkNotNull(path);
+        snprintf(path, pathSize, "%s/status", batchOutput);
+        status = fopen(path, "w");
+        if (status == NULL) {
+            PRINT_ERROR("Could not open batch status file: %s", path);
+        }
+        free(path);
+        savedOut = dup(STDOUT_FILENO);
+        savedErr = dup(STDERR_FILENO);
+    }
+    batchStatus = status;
+    batchSavedErr = savedErr;
+    #ifdef __GLIBC__
+    on_exit(batchOnExit, NULL);
+    #else
+    atexit(batchOnExit);
+    #endif
+
+    char* line = NULL;
+    size_t lineCapacity = 0;
+    char** args = NULL;
+    size_t argsCapacity = 0;
+    int numRecords = 0;
+    int numFailures = 0;
+    ssize_t length;
+    while ((length = getdelim(&line, &lineCapacity, batchDelimiter, input)) >= 0) {
+        if (length > 0 && line[length - 1] == batchDelimiter) {
+            line[--length] = '\0';
+        }
+
+        // The program name plus the arguments, and skip blank records
+        size_t maxArgs = length / 2 + 2;
+        if (maxArgs > argsCapacity) {
+            argsCapacity = maxArgs;
+            args = (char**)realloc(args, argsCapacity * sizeof(char*));
+            checkNotNull(args);
+        }
+        args[0] = programName;
+        int argc = 1 + splitQuoted(line, args + 1);
+        if (argc == 1) {
+            continue;
+        }
+
+        int record = ++numRecords;
+        if (batchOutput != NULL) {
+            batchRedirect(record, "out", STDOUT_FILENO);
+            batchRedirect(record, "err", STDERR_FILENO);
+        }
+
+        batchRecord = record;
+        int exitCode = callMain(vm, argc, args);
+        flushJavaStreams(vm);
+        batchRecord = 0;
+        if (exitCode != 0) {
+            numFailures++;
+        }
+
+        if (batchOutput != NULL) {
+            dup2(savedOut, STDOUT_FILENO);
+            dup2(savedErr, STDERR_FILENO);
+        }
+        if (status != NULL) {
+            fprintf(status, "%d %d\n", record, exitCode);
+            fflush(status);
+        } else if (exitCode != 0) {
+            PRINT_ERROR("Batch record %d failed with exit code %d", record, exitCode);
+        }
+    }
+    PRINT_DEBUG("Processed %d batch records (%d failed)", numRecords, numFailures);
+
+    free(line);
+    free(args);
+    fclose(input);
+    batchStatus = NULL;
+    batchSavedErr = -1;
+    if (status != NULL) fclose(status);
+    if (savedOut >= 0) close(savedOut);
+    if (savedErr >= 0) close(savedErr);
+    return numFailures == 0 ? 0 : 1;
+}
+#endif
+
+// Main entry point
+int launcher_main(const LauncherConfig* config, int argc, char** argv) {
+    PRINT_DEBUG("Running on "OS_FAMILY);
+    traceInit(config);
+
+    // Expand '@file' arguments before they get forwarded anywhere
+    ExpandedArgs expandedArgs;
+    if (!expandArgFiles(config, argc, argv, &expandedArgs)) {
+        freeExpandedArgs(&expandedArgs);
+        return 1;
+    }
+    argc = expandedArgs.argc;
+    argv = expandedArgs.argv;
+
+    // Determine the executable path on the native side since
+    // it's more reliable than trying to do it in Java.
+    PRINT_DEBUG("Determining executable path property");
+    traceBegin();
+    char* exePath = getExecutablePath();
+    traceEnd(PHASE_EXECUTABLE_PATH);
+    if (exePath == NULL) {
+        PRINT_ERROR("Could not determine executable path.");
+    }
+
+    // Batches run all records in this process
+    int batchMode = 0;
+    #ifdef LAUNCHER_BATCH_SUPPORTED
+    batchMode = batchInit(config);
+    #endif
+
+    #ifdef LAUNCHER_DAEMON_SUPPORTED
+    if (!batchMode && daemonInit(config, exePath)) {
+        int exitCode = 0;
+        if (daemonCall(argc, argv, &exitCode)) {
+            free(exePath);
+            freeExpandedArgs(&expandedArgs);
+            traceClose();
+            return exitCode;
+        }
+
+        // Run in-process and start a daemon for subsequent calls
+        daemonSpawn();
+    }
+    #endif
+
+    #ifdef LAUNCHER_PREFETCH_SUPPORTED
+    prefetchLibrary(config, exePath);
+    #endif
+
+    char* launcherPath = concat("-Dlauncher.executablePath=", exePath);
+
+    // Prepare jvm options
+    OptionList options;
+    memset(&options, 0, sizeof(options));
+
+    // General options for a good out of the box experience
+    addOption(&options, "-Dpicocli.ansi=tty");
+    addOption(&options, "-Dfile.encoding=UTF-8");
+    addOption(&options, "-Dnative.encoding=UTF-8");
+    addOption(&options, "-Dsun.jnu.encoding=UTF-8");
+    #if defined(_WIN32) || defined(_WIN64)
+
+        // Set the Console Code Pages to UTF-8 (65001)
+        DWORD consoleMode = 0;
+        HANDLE stdOut = GetStdHandle(STD_OUTPUT_HANDLE);
+
+        if (GetConsoleMode(stdOut, &consoleMode)) {
+            // We have a real console, set UTF-8
+            SetConsoleOutputCP(65001);
+            SetConsoleCP(65001);
+            PRINT_DEBUG("Set console output to UTF-8 (check: Æøåæøå)");
+
+            // Other piped inputs are determined by the sender
+            addOption(&options, "-Dstdin.encoding=UTF-8");
+        }
+
+        // Make Java aware that streams are UTF-8. Note that this does not
+        // handle piped file outputs in classic powershell, but there does not
+        // seem to be a way to fix that from the application side.
+        addOption(&options, "-Dstdout.encoding=UTF-8");
+        addOption(&options, "-Dstderr.encoding=UTF-8");
+
+        char* userModelIdProperty = NULL;
+        if (config->userModelId != NULL) {
+            // The AUMID needs to be a wide character string (required by Windows API)
+            // This makes the taskbar icons be consistent, e.g., launching the app does not show two icons
+            wchar_t app_aumid[256];
+            MultiByteToWideChar(CP_UTF8, 0, config->userModelId, -1, app_aumid, 256);
+
+            HRESULT hr = SetCurrentProcessExplicitAppUserModelID(app_aumid);
+            if (SUCCEEDED(hr)) {
+                PRINT_DEBUG("Set Application User Model Id: %s", config->userModelId);
+
+                // Set property similar to Conveyor's 'app.windows.userModelID'
+                // https://conveyor.hydraulic.dev/21.0/configs/os-integration/#windows-appusermodelid-aumid
+                userModelIdProperty = concat("-Dlauncher.windows.userModelID=", config->userModelId);
+                addOption(&options, userModelIdProperty);
+            } else {
+                PRINT_ERROR("Failed to set Application User Model Id)");
+            }
+        }
+
+    #endif
+
+    // Metadata and user jvm args
+    addOption(&options, launcherPath);
+    #ifdef LAUNCHER_DAEMON_SUPPORTED
+    if (daemonServer) {
+        addOption(&options, "-Dlauncher.daemon=true");
+    }
+    #endif
+    if (batchMode) {
+        addOption(&options, "-Dlauncher.batch=true");
+    }
+    for (int i = 0; i < config->numJvmArgs; i++) {
+        addOption(&options, (char*)config->jvmArgs[i]);
+    }
+
+    // Deployment specific options
+    ArgFile vmOptionsFile;
+    memset(&vmOptionsFile, 0, sizeof(vmOptionsFile));
+    addVmOptionsFile(&options, exePath, config->name, &vmOptionsFile);
+    char* envOptions = addEnvOptions(&options, config->name);
+    free(exePath);
+
+    #if defined(__linux__)
+    ContainerOptions containerOptions;
+    memset(&containerOptions, 0, sizeof(containerOptions));
+    addContainerOptions(&options, config, &containerOptions);
+    #endif
+
+    PRINT_DEBUG("Adding vm options:");
+    for (int i=0; i < options.count; i++) {
+        PRINT_DEBUG("%s", options.options[i].optionString);
+    }
+
+    // Init struct
+    JavaVMInitArgs vm_args;
+    vm_args.version = JNI_VERSION_1_8;
+    vm_args.nOptions = options.count;
+    vm_args.options = options.options;
+    vm_args.ignoreUnrecognized = JNI_FALSE;
+
+    // Bind to library
+    traceBegin();
+    void* handle = bindLibrary(config);
+
+    LauncherVM vm;
+    memset(&vm, 0, sizeof(vm));
+    vm.config = config;
+    vm.library = handle;
+    int exitCode = config->entryPoint != NULL
+        ? createIsolate(&vm, handle, options.options, options.count)
+        : createJavaVM(&vm, handle, &vm_args);
+    free(launcherPath);
+    free(options.options);
+    free(envOptions);
+    freeArgFile(&vmOptionsFile);
+    #if defined(_WIN32) || defined(_WIN64)
+    free(userModelIdProperty);
+    #endif
+    #ifdef LAUNCHER_PREFETCH_SUPPORTED
+    prefetchReport("VM creation");
+    #endif
+
+    if (exitCode == 0) {
+        #ifdef LAUNCHER_DAEMON_SUPPORTED
+        if (daemonServer) {
+            exitCode = daemonServe(&vm);
+        } else
+        #endif
+        #ifdef LAUNCHER_BATCH_SUPPORTED
+        if (batchMode) {
+            exitCode = exitLauncherVM(&vm, batchServe(&vm, argc > 0 ? argv[0] : (char*)config->name));
+        } else
+        #endif
+        {
+            exitCode = callMain(&vm, argc, argv);
+            #ifdef LAUNCHER_PREFETCH_SUPPORTED
+            prefetchRecord(config);
+            #endif
+            exitCode = exitLauncherVM(&vm, exitCode);
+        }
+    }
+    destroyLauncherVM(&vm);
+    freeExpandedArgs(&expandedArgs);
+    return exitCode;
+
+}
@@ -0,0 +1,88 @@
+/*-
+ * #%L
+ * Native Launchers Plugin
+ * %%
+ * Copyright (C) 2023 - 2026 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+#ifndef __LAUNCHER_RUNTIME_H
+#define __LAUNCHER_RUNTIME_H
+
+/*
+ * Shared launcher runtime that is identical for all launchers. The
+ * generated launchers only define the constants and call into it.
+ */
+
+#if defined(_WIN32) || defined(_WIN64)
+    #include <wchar.h>
+    typedef wchar_t lib_char_t; // LoadLibraryW requires wide strings
+#else
+    typedef char lib_char_t;
+#endif
+
+// How '@file' arguments get expanded
+typedef enum {
+    ARG_FILES_NONE,                 // passed as-is
+    ARG_FILES_LINES,                // one argument per non-empty line
+    ARG_FILES_NUL                   // NUL-separated, e.g., 'find -print0'
+} ArgFileMode;
+
+// What happens after the main method returns
+typedef enum {
+    EXIT_MODE_PROPAGATE,            // return the exit code and exit normally
+    EXIT_MODE_DESTROY,              // wait for non-daemon threads and tear down the VM
+    EXIT_MODE_HALT                  // flush the output streams and _exit immediately
+} ExitMode;
+
+// Symbols that got bound by the system loader when linking against the library
+typedef struct {
+    void* createJavaVM;             // JNI_CreateJavaVM, or NULL
+    void* createIsolate;            // graal_create_isolate, or NULL
+    void* entryPoint;               // generated @CEntryPoint, or NULL
+    void* tearDownIsolate;          // graal_tear_down_isolate, or NULL
+} LinkedSymbols;
+
+// Launcher specific constants
+typedef struct {
+    const char* name;               // display name of the launcher
+    const char* mainClass;          // fully qualified name, e.g., us.hebi.samples.cli.HelloWorld
+    const lib_char_t* libFile;      // name of the native-image shared library
+    const char* userModelId;        // Windows taskbar id, or NULL
+    int numJvmArgs;
+    const char* const* jvmArgs;     // metadata and user jvm args
+    const char* entryPoint;         // generated @CEntryPoint symbol, or NULL for JNI
+    int daemonIdleTimeout;          // seconds until an idle daemon exits, or 0 to always run in-process
+    int bulkArgsThreshold;          // min number of args that get passed as a single buffer, or 0 to disable
+    const char* argsDecoder;        // generated decoder class for bulk args, e.g., com/example/LauncherArgs
+    ArgFileMode argFiles;
+    int containerHeapPercentage;    // share of the container memory limit used for -Xmx, or 0 to disable
+    const LinkedSymbols* linked;    // bound at link time, or NULL to load the library via dlopen
+    ExitMode exitMode;
+    int prefetch;                   // reads the library into the page cache before loading it
+    int batch;                      // whether LAUNCHER_BATCH runs multiple invocations in this process
+} LauncherConfig;
+
+#ifdef __cplusplus
+extern "C" {
+#endif
+
+int launcher_main(const LauncherConfig* config, int argc, char** argv);
+
+#ifdef __cplusplus
+}
+#endif
+
+#endif
@@ -0,0 +1,29 @@
+/*-
+ * #%L
+ * Native Launchers Plugin
+ * %%
+ * Copyright (C) 2023 - 2026 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+ /*
+ Stand-in for the native-image shared library that launchers get linked against
+ when using linkMode=linked. It only exports the symbols that the launchers
+ reference and never gets loaded, so the launchers can be compiled before the
+ native image exists. At runtime the system loader binds to the actual
+ {{LIB_FILE}} that gets resolved via the rpath.
+ */
+
+{{STUB_FUNCTIONS}}
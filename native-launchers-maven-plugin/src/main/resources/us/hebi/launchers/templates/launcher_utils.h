@@ -44,10 +44,8 @@
     #include <stdio.h>
     #define RTLD_LAZY 0 // TODO: are there flags we should add?
 
-    #ifdef AUMID
     #include <shlobj.h>  // Contains the declaration for SetCurrentProcessExplicitAppUserModelID
     #include <wchar.h>   // For wide characters (L"...")
-    #endif
 
     #ifdef __cplusplus
     extern "C" {
@@ -183,6 +181,28 @@ static inline char* concat(const char* prefix, const char* suffix) {
     return out; // caller owns and must free()
 }
 
+// =========== MONOTONIC CLOCK ===========
+#if defined(_WIN32) || defined(_WIN64)
+static inline unsigned long long nanoTime() {
+    static LARGE_INTEGER frequency;
+    if (frequency.QuadPart == 0) {
+        QueryPerformanceFrequency(&frequency);
+    }
+    LARGE_INTEGER counter;
+    QueryPerformanceCounter(&counter);
+    unsigned long long seconds = counter.QuadPart / frequency.QuadPart;
+    unsigned long long remainder = counter.QuadPart % frequency.QuadPart;
+    return seconds * 1000000000ULL + remainder * 1000000000ULL / frequency.QuadPart;
+}
+#else
+#include <time.h>
+static inline unsigned long long nanoTime() {
+    struct timespec ts;
+    clock_gettime(CLOCK_MONOTONIC, &ts);
+    return (unsigned long long)ts.tv_sec * 1000000000ULL + ts.tv_nsec;
+}
+#endif
+
 #ifdef __cplusplus
 }
 #endif
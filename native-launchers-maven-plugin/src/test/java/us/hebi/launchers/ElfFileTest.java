@@ -0,0 +1,188 @@
+/*-
+ * #%L
+ * Native Launchers Plugin
+ * %%
+ * Copyright (C) 2023 - 2026 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.launchers;
+
+import org.apache.maven.plugin.MojoFailureException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for reading the dynamic section and symbols of ELF binaries
+ *
+ * @since 17 Oct 2026
+ */
+public class ElfFileTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void readsDynamicSection() throws Exception {
+        Path file = write("launcher", new ElfBuilder().build());
+        assertTrue(ElfFile.isElf(file));
+
+        ElfFile elf = ElfFile.read(file);
+        assertEquals(Collections.singletonList("libimage.so"), elf.getNeeded());
+        assertEquals(Arrays.asList("$ORIGIN/../lib", "/opt/lib"), elf.getRunpath());
+        assertEquals(Arrays.asList(tmp.getRoot().toPath().resolve("../lib").normalize(), Paths.get("/opt/lib")),
+                elf.getSearchPath(tmp.getRoot().toPath()));
+        assertTrue(elf.definesSymbol("run_main"));
+        assertFalse(elf.definesSymbol("undefined_symbol"));
+        assertEquals(2, elf.getDynamicSymbols());
+        assertEquals(3, elf.getRelocations());
+        assertEquals(Files.size(file), elf.getSize());
+    }
+
+    @Test
+    public void rejectsOtherFiles() throws Exception {
+        Path file = write("script.sh", "#!/bin/sh\necho hello\n".getBytes(StandardCharsets.US_ASCII));
+        assertFalse(ElfFile.isElf(file));
+        assertMalformed(file, "not an ELF file");
+    }
+
+    @Test
+    public void rejectsTruncatedFiles() throws Exception {
+        byte[] bytes = new ElfBuilder().build();
+        assertMalformed(write("truncated", Arrays.copyOf(bytes, bytes.length - 16)), "section headers");
+    }
+
+    @Test
+    public void rejectsSectionHeadersOutsideOfFile() throws Exception {
+        ElfBuilder builder = new ElfBuilder();
+        builder.sectionHeaderOffset = 1L << 40;
+        assertMalformed(write("offset", builder.build()), "exceeds the file size");
+    }
+
+    @Test
+    public void rejectsInvalidSectionLinks() throws Exception {
+        ElfBuilder builder = new ElfBuilder();
+        builder.dynamicLink = 99;
+        assertMalformed(write("link", builder.build()), "section link 99 is out of range");
+    }
+
+    @Test
+    public void rejectsInvalidStringOffsets() throws Exception {
+        ElfBuilder builder = new ElfBuilder();
+        builder.neededOffset = 4096;
+        assertMalformed(write("string", builder.build()), "string offset 4096");
+    }
+
+    @Test
+    public void rejectsSectionsOutsideOfFile() throws Exception {
+        ElfBuilder builder = new ElfBuilder();
+        builder.dynamicSize = 1L << 33;
+        assertMalformed(write("section", builder.build()), "dynamic section");
+    }
+
+    private void assertMalformed(Path file, String reason) throws IOException {
+        try {
+            ElfFile.read(file);
+            fail("Expected " + file + " to be rejected");
+        } catch (MojoFailureException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith("Malformed ELF file " + file + ": "));
+            assertTrue(ex.getMessage(), ex.getMessage().contains(reason));
+        }
+    }
+
+    private Path write(String name, byte[] bytes) throws IOException {
+        return Files.write(tmp.getRoot().toPath().resolve(name), bytes);
+    }
+
+    /**
+     * Minimal little-endian 64-bit shared object with a dynamic section, dynamic symbols, and relocations
+     */
+    static class ElfBuilder {
+
+        long sectionHeaderOffset = -1;
+        int dynamicLink = 1;
+        long dynamicSize = 3 * 16;
+        long neededOffset = 1;
+
+        byte[] build() {
+            ByteBuffer buf = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+
+            // String table
+            String strings = "\0libimage.so\0$ORIGIN/../lib:/opt/lib\0run_main\0undefined_symbol\0";
+            int strOffset = 64;
+            buf.position(strOffset);
+            buf.put(strings.getBytes(StandardCharsets.US_ASCII));
+            int strSize = strings.length();
+
+            // Dynamic section: NEEDED, RUNPATH, NULL
+            int dynOffset = 192;
+            buf.putLong(dynOffset, 1).putLong(dynOffset + 8, neededOffset);
+            buf.putLong(dynOffset + 16, 29).putLong(dynOffset + 24, strings.indexOf("$ORIGIN"));
+            buf.putLong(dynOffset + 32, 0).putLong(dynOffset + 40, 0);
+
+            // Dynamic symbols: null entry, defined, undefined
+            int symOffset = 256;
+            buf.putInt(symOffset + 24, strings.indexOf("run_main")).putShort(symOffset + 24 + 6, (short) 5);
+            buf.putInt(symOffset + 48, strings.indexOf("undefined_symbol")).putShort(symOffset + 48 + 6, (short) 0);
+
+            // Relocations are only counted
+            int relaOffset = 336;
+
+            // Section headers: null, .dynstr, .dynamic, .dynsym, .rela.dyn
+            int shOffset = 448;
+            int shCount = 5;
+            putSection(buf, shOffset + 64, 3, 0, strOffset, strSize, 0, 0);
+            putSection(buf, shOffset + 128, 6, 2, dynOffset, dynamicSize, dynamicLink, 16);
+            putSection(buf, shOffset + 192, 11, 2, symOffset, 3 * 24, 1, 24);
+            putSection(buf, shOffset + 256, 4, 2, relaOffset, 3 * 24, 3, 24);
+
+            // Header
+            buf.putInt(0, 0x464C457F); // "\x7fELF"
+            buf.put(4, (byte) 2); // 64-bit
+            buf.put(5, (byte) 1); // little-endian
+            buf.put(6, (byte) 1); // version
+            buf.putShort(0x10, (short) 3); // shared object
+            buf.putLong(0x28, sectionHeaderOffset >= 0 ? sectionHeaderOffset : shOffset);
+            buf.putShort(0x3A, (short) 64);
+            buf.putShort(0x3C, (short) shCount);
+
+            return Arrays.copyOf(buf.array(), shOffset + shCount * 64);
+        }
+
+        private static void putSection(ByteBuffer buf, int offset, int type, long flags, long fileOffset, long size, int link, long entrySize) {
+            buf.putInt(offset + 4, type);
+            buf.putLong(offset + 8, flags);
+            buf.putLong(offset + 24, fileOffset);
+            buf.putLong(offset + 32, size);
+            buf.putInt(offset + 40, link);
+            buf.putLong(offset + 56, entrySize);
+        }
+
+    }
+
+}
@@ -0,0 +1,173 @@
+/*-
+ * #%L
+ * Native Launchers Plugin
+ * %%
+ * Copyright (C) 2023 - 2026 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.launchers;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the build inputs and generated helpers of the generate-launchers goal
+ *
+ * @since 17 Oct 2026
+ */
+public class GenerateNativeLaunchersMojoTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void cacheKeyCoversAllInputs() throws Exception {
+        Path dir = tmp.getRoot().toPath();
+        Files.write(dir.resolve("a.c"), "int a;".getBytes(StandardCharsets.UTF_8));
+        Files.write(dir.resolve("b.h"), "int b;".getBytes(StandardCharsets.UTF_8));
+        List<String> files = Arrays.asList("a.c", "b.h");
+        List<String> args = Arrays.asList("-O2", "-c");
+
+        String key = GenerateNativeLaunchersMojo.computeCacheKey(dir, files, args, "gcc 12");
+        assertTrue(key, key.matches("[0-9a-f]{64}"));
+        assertEquals(key, GenerateNativeLaunchersMojo.computeCacheKey(dir, files, args, "gcc 12"));
+
+        Set<String> keys = new HashSet<>();
+        keys.add(key);
+        keys.add(GenerateNativeLaunchersMojo.computeCacheKey(dir, files, args, "gcc 13"));
+        keys.add(GenerateNativeLaunchersMojo.computeCacheKey(dir, files, Arrays.asList("-O3", "-c"), "gcc 12"));
+        keys.add(GenerateNativeLaunchersMojo.computeCacheKey(dir, files, Arrays.asList("-O2 -c"), "gcc 12"));
+        keys.add(GenerateNativeLaunchersMojo.computeCacheKey(dir, Collections.singletonList("a.c"), args, "gcc 12"));
+        Files.write(dir.resolve("b.h"), "int c;".getBytes(StandardCharsets.UTF_8));
+        keys.add(GenerateNativeLaunchersMojo.computeCacheKey(dir, files, args, "gcc 12"));
+        assertEquals(6, keys.size());
+    }
+
+    @Test
+    public void argsDecoderSplitsUtf8Strings() throws Exception {
+        GenerateNativeLaunchersMojo mojo = newMojo("com.example.tools.Main");
+        assertEquals("com.example.tools.LauncherArgs", mojo.getArgsDecoderClass());
+        Method decode = compileArgsDecoder(mojo);
+
+        String[] args = {"first", "", "héllo wörld", "😀", "-Dkey=value"};
+        assertArrayEquals(args, (String[]) decode.invoke(null, encode(args), args.length));
+        assertArrayEquals(new String[0], (String[]) decode.invoke(null, ByteBuffer.allocate(0), 0));
+
+        String[] many = new String[100_000];
+        for (int i = 0; i < many.length; i++) {
+            many[i] = "arg" + i;
+        }
+        assertArrayEquals(many, (String[]) decode.invoke(null, encode(many), many.length));
+    }
+
+    @Test
+    public void argsDecoderClassCanBeConfigured() {
+        GenerateNativeLaunchersMojo mojo = newMojo("Main");
+        assertEquals("LauncherArgs", mojo.getArgsDecoderClass());
+        mojo.argsDecoderClass = "com.example.Args";
+        assertEquals("com.example.Args", mojo.getArgsDecoderClass());
+    }
+
+    @Test
+    public void entryPointOptions() {
+        assertTrue(GenerateNativeLaunchersMojo.isEntryPointOption("-Dkey=value"));
+        assertTrue(GenerateNativeLaunchersMojo.isEntryPointOption("-Xmx512m"));
+        assertTrue(GenerateNativeLaunchersMojo.isEntryPointOption("-Xmn32m"));
+        assertTrue(GenerateNativeLaunchersMojo.isEntryPointOption("-XX:MaxHeapFree=64m"));
+        assertFalse(GenerateNativeLaunchersMojo.isEntryPointOption("-ea"));
+        assertFalse(GenerateNativeLaunchersMojo.isEntryPointOption("-verbose:gc"));
+        assertFalse(GenerateNativeLaunchersMojo.isEntryPointOption("-Xlog:gc"));
+    }
+
+    @Test
+    public void profileSetsHeapSizes() {
+        GenerateNativeLaunchersMojo mojo = newMojo("com.example.Main");
+        mojo.launchers.get(0).profile = "service";
+        List<String> args = mojo.getJvmArgs(mojo.launchers.get(0));
+        assertTrue(args.toString(), args.containsAll(Arrays.asList("-Xmn32m", "-Xmx512m")));
+    }
+
+    @Test
+    public void containerHeapReplacesProfileHeapSizes() {
+        GenerateNativeLaunchersMojo mojo = newMojo("com.example.Main");
+        mojo.containerHeapPercentage = 75;
+        for (String profile : Arrays.asList("cli", "service", "gui")) {
+            mojo.launchers.get(0).profile = profile;
+            for (String arg : mojo.getJvmArgs(mojo.launchers.get(0))) {
+                assertFalse(profile + ": " + arg, arg.startsWith("-Xmx") || arg.startsWith("-Xmn"));
+            }
+        }
+
+        // Explicitly configured sizes still take precedence
+        mojo.launchers.get(0).jvmArgs = Collections.singletonList("-Xmn16m");
+        assertTrue(mojo.getJvmArgs(mojo.launchers.get(0)).contains("-Xmn16m"));
+    }
+
+    private static GenerateNativeLaunchersMojo newMojo(String mainClass) {
+        GenerateNativeLaunchersMojo mojo = new GenerateNativeLaunchersMojo();
+        mojo.debug = false;
+        mojo.imageName = "image";
+        mojo.containerHeapPercentage = 0;
+        mojo.jvmArgs = Collections.emptyList();
+        BaseConfig.Launcher launcher = new BaseConfig.Launcher();
+        launcher.name = "tool";
+        launcher.mainClass = mainClass;
+        mojo.launchers = Collections.singletonList(launcher);
+        return mojo;
+    }
+
+    private Method compileArgsDecoder(GenerateNativeLaunchersMojo mojo) throws Exception {
+        Path sources = tmp.newFolder("sources").toPath();
+        Path classes = tmp.newFolder("classes").toPath();
+        mojo.generateArgsDecoder(sources);
+        Path source = sources.resolve(mojo.getArgsDecoderClass().replace('.', '/') + ".java");
+        assertTrue(Files.isRegularFile(source));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull("Tests require a JDK", compiler);
+        assertEquals(0, compiler.run(null, null, null, "-d", classes.toString(), source.toString()));
+        URLClassLoader loader = new URLClassLoader(new URL[]{classes.toUri().toURL()});
+        Method decode = loader.loadClass(mojo.getArgsDecoderClass()).getDeclaredMethod("decode", ByteBuffer.class, int.class);
+        decode.setAccessible(true);
+        return decode;
+    }
+
+    /**
+     * Same format as the native launchers, i.e., null-terminated UTF-8 strings
+     */
+    private static ByteBuffer encode(String[] args) {
+        StringBuilder builder = new StringBuilder();
+        for (String arg : args) {
+            builder.append(arg).append('\0');
+        }
+        return ByteBuffer.wrap(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,89 @@
+/*-
+ * #%L
+ * Native Launchers Plugin
+ * %%
+ * Copyright (C) 2023 - 2026 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.launchers;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the streaming JSON writer
+ *
+ * @since 17 Oct 2026
+ */
+public class JsonWriterTest {
+
+    @Test
+    public void writesIndentedObjects() {
+        String json = new JsonWriter()
+                .beginArray()
+                .beginObject()
+                .name("name").value("java.lang.System")
+                .name("methods").beginArray()
+                .beginObject()
+                .name("name").value("getProperty")
+                .name("parameterTypes").values(Arrays.asList("java.lang.String"))
+                .endObject()
+                .endArray()
+                .endObject()
+                .endArray()
+                .toString();
+        assertEquals("[\n" +
+                "  {\n" +
+                "    \"name\": \"java.lang.System\",\n" +
+                "    \"methods\": [\n" +
+                "      {\n" +
+                "        \"name\": \"getProperty\",\n" +
+                "        \"parameterTypes\": [\"java.lang.String\"]\n" +
+                "      }\n" +
+                "    ]\n" +
+                "  }\n" +
+                "]", json);
+    }
+
+    @Test
+    public void writesEmptyContainersAndValues() {
+        assertEquals("{\n  \"list\": [],\n  \"object\": {},\n  \"count\": 3,\n  \"raw\": 1.5,\n  \"missing\": null\n}",
+                new JsonWriter().beginObject()
+                        .name("list").beginArray().endArray()
+                        .name("object").beginObject().endObject()
+                        .name("count").value(3)
+                        .name("raw").rawValue("1.5")
+                        .name("missing").value(null)
+                        .endObject()
+                        .toString());
+        assertEquals("[\"1\", \"2\"]", new JsonWriter().values(Arrays.asList(1, 2)).toString());
+    }
+
+    @Test
+    public void escapesStrings() {
+        assertEquals("\"quote\\\" slash\\\\ \\n\\r\\t \\u0001 \u00e9\"",
+                new JsonWriter().value("quote\" slash\\ \n\r\t \u0001 \u00e9").toString());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void unbalancedCloseFails() {
+        new JsonWriter().endObject();
+    }
+
+}
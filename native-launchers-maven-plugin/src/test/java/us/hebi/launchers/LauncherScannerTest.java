@@ -0,0 +1,147 @@
+/*-
+ * #%L
+ * Native Launchers Plugin
+ * %%
+ * Copyright (C) 2023 - 2026 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.launchers;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import us.hebi.launchers.BaseConfig.Launcher;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for finding main classes via annotations and META-INF/native-launchers files
+ *
+ * @since 17 Oct 2026
+ */
+public class LauncherScannerTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void findsAnnotatedMainClasses() throws Exception {
+        Path classes = compile(
+                "package tools; public @interface Tool { String name() default \"\"; }",
+                "package tools; @Tool public class HTTPServerTool { public static void main(String[] args) {} }",
+                "package tools; @Tool(name = \"custom\") public class Renamed { public static void main(String[] args) {} }",
+                "package tools; @Tool public class NoMain { public static void run(String[] args) {} }",
+                "package tools; @Tool public class PrivateMain { static void main(String[] args) {} }",
+                "package tools; public class NotAnnotated { public static void main(String[] args) {} }",
+                "package tools; public class AnnotatedMember { @Tool public static void main(String[] args) {} }");
+
+        LauncherScanner scanner = new LauncherScanner("tools.Tool");
+        Map<String, String> launchers = toMap(scanner.scan(Collections.singletonList(classes)));
+        Map<String, String> expected = new HashMap<>();
+        expected.put("tools.HTTPServerTool", "http-server-tool");
+        expected.put("tools.Renamed", "custom");
+        assertEquals(expected, launchers);
+        assertEquals(7, scanner.getNumScannedClasses());
+    }
+
+    @Test
+    public void readsServicesFilesInJars() throws Exception {
+        Path jar = tmp.getRoot().toPath().resolve("listed.jar");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            out.putNextEntry(new JarEntry("META-INF/native-launchers"));
+            out.write(("# comment\n" +
+                    "com.example.Hello\n" +
+                    "\n" +
+                    "  greet = com.example.Greeter  # trailing comment\n").getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<Launcher> launchers = new LauncherScanner(null).scan(Collections.singletonList(jar));
+        assertEquals(2, launchers.size());
+        assertEquals("com.example.Hello", launchers.get(0).getMainClass());
+        assertEquals("hello", launchers.get(0).getName());
+        assertEquals("com.example.Greeter", launchers.get(1).getMainClass());
+        assertEquals("greet", launchers.get(1).getName());
+    }
+
+    @Test
+    public void firstOccurrenceWins() throws Exception {
+        Path first = tmp.newFolder("first").toPath();
+        Path second = tmp.newFolder("second").toPath();
+        write(first.resolve("META-INF/native-launchers"), "one=com.example.Tool\n");
+        write(second.resolve("META-INF/native-launchers"), "two=com.example.Tool\ncom.example.Other\n");
+
+        List<Launcher> launchers = new LauncherScanner(null).scan(Arrays.asList(first, second));
+        assertEquals(2, launchers.size());
+        assertEquals("one", launchers.get(0).getName());
+        assertEquals("other", launchers.get(1).getName());
+    }
+
+    @Test
+    public void ignoresMalformedClassFiles() throws Exception {
+        Path classes = tmp.newFolder("classes").toPath();
+        Files.write(classes.resolve("Broken.class"), new byte[]{(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 0, 0});
+        Files.write(classes.resolve("Empty.class"), new byte[0]);
+        assertTrue(new LauncherScanner("tools.Tool").scan(Collections.singletonList(classes)).isEmpty());
+    }
+
+    @Test
+    public void derivesKebabCaseNames() {
+        assertEquals("hello-world", LauncherScanner.deriveName("com.example.HelloWorld"));
+        assertEquals("http-server-tool", LauncherScanner.deriveName("com.example.HTTPServerTool"));
+        assertEquals("inner", LauncherScanner.deriveName("com.example.Outer$Inner"));
+        assertEquals("tool2-go", LauncherScanner.deriveName("Tool2Go"));
+    }
+
+    private Path compile(String... sources) throws IOException {
+        Path sourceDir = tmp.newFolder("sources").toPath();
+        Path classes = tmp.newFolder("classes").toPath();
+        List<String> args = new ArrayList<>(Arrays.asList("-d", classes.toString()));
+        for (String source : sources) {
+            String className = source.replaceAll("(?s).*(class|@interface) (\\w+).*", "$2");
+            Path file = sourceDir.resolve(className + ".java");
+            write(file, source);
+            args.add(file.toString());
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull("Tests require a JDK", compiler);
+        assertEquals(0, compiler.run(null, null, null, args.toArray(new String[0])));
+        return classes;
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, String> toMap(List<Launcher> launchers) {
+        Map<String, String> map = new HashMap<>();
+        for (Launcher launcher : launchers) {
+            map.put(launcher.getMainClass(), launcher.getName());
+        }
+        return map;
+    }
+
+}
@@ -0,0 +1,96 @@
+/*-
+ * #%L
+ * Native Launchers Plugin
+ * %%
+ * Copyright (C) 2023 - 2026 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.launchers;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for filling templates and escaping C string literals
+ *
+ * @since 17 Oct 2026
+ */
+public class TemplateTest {
+
+    @Test
+    public void fillReplacesPlaceholders() {
+        Template template = new Template("int {{NAME}} = {{VALUE}};\n");
+        assertEquals("int answer = 42;\n", template.fill(values("NAME", "answer", "VALUE", "42")));
+    }
+
+    @Test
+    public void emptyStandalonePlaceholderRemovesLine() {
+        Template template = new Template("a\n{{OPTIONAL}}\nb {{INLINE}}\n");
+        assertEquals("a\nb \n", template.fill(values("OPTIONAL", "", "INLINE", "")));
+        assertEquals("a\nx\nb y\n", template.fill(values("OPTIONAL", "x", "INLINE", "y")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingValueFails() {
+        new Template("{{A}} {{B}}").fill(values("A", "a"));
+    }
+
+    @Test
+    public void escapeKeepsPlainAscii() {
+        String value = "us.hebi.samples.HelloWorld";
+        assertSame(value, Template.escapeC(value));
+    }
+
+    @Test
+    public void escapeSpecialCharacters() {
+        assertEquals("\\\"quoted\\\" C:\\\\dir", Template.escapeC("\"quoted\" C:\\dir"));
+        assertEquals("what\\?\\?=", Template.escapeC("what??="));
+        assertEquals("a\\nb\\rc\\td", Template.escapeC("a\nb\rc\td"));
+        assertEquals("\\0001\\0372\\177", Template.escapeC("\u00001\u001f2\u007f"));
+    }
+
+    @Test
+    public void escapeNonAsciiAsUtf8Octal() {
+        assertEquals("h\\303\\251llo", Template.escapeC("h\u00e9llo"));
+        assertEquals("\\302\\205", Template.escapeC("\u0085")); // below 0xA0, which is invalid as a UCN
+        assertEquals("\\342\\202\\254", Template.escapeC("\u20ac"));
+        assertEquals("x\\360\\237\\230\\200y", Template.escapeC("x\ud83d\ude00y"));
+    }
+
+    @Test
+    public void escapeReplacesLoneSurrogates() {
+        assertEquals("a\\357\\277\\275b", Template.escapeC("a\ud800b"));
+        assertEquals("\\357\\277\\275", Template.escapeC("\udc00"));
+    }
+
+    @Test
+    public void toCStringAddsQuotes() {
+        assertEquals("\"-Dkey=\\\"value\\\"\"", Template.toCString("-Dkey=\"value\""));
+    }
+
+    private static Map<String, String> values(String... keyValues) {
+        Map<String, String> map = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            map.put(keyValues[i], keyValues[i + 1]);
+        }
+        return map;
+    }
+
+}
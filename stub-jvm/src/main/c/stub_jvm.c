@@ -0,0 +1,362 @@
+/*-
+ * #%L
+ * Native Launchers Plugin
+ * %%
+ * Copyright (C) 2023 - 2026 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+ /*
+ Fake JVM library that exports JNI_CreateJavaVM with a minimal JNIEnv, so that the
+ generated launchers can run without a native image. The main method returns right
+ away, which leaves only the overhead of the launcher itself (path lookup, option
+ building, library loading, and argument conversion).
+
+ The behavior can be controlled via environment variables:
+   STUB_JVM_RECORD=stderr|<file>  appends one JSON line with the recorded calls and timings
+   STUB_JVM_ECHO=1                prints the vm options and arguments
+   STUB_JVM_EXIT=<code>           exits from main like System.exit()
+   STUB_JVM_THROW=1               leaves a pending exception after main
+ */
+
+#define _GNU_SOURCE
+#include <fcntl.h>
+#include <stdio.h>
+#include <stdlib.h>
+#include <string.h>
+#include <time.h>
+#include <unistd.h>
+#include "jni.h"
+
+// =========== RECORDING ===========
+typedef enum {
+    CALL_CREATE_VM,
+    CALL_FIND_CLASS,
+    CALL_GET_STATIC_METHOD_ID,
+    CALL_GET_METHOD_ID,
+    CALL_GET_STATIC_FIELD_ID,
+    CALL_NEW_STRING_UTF,
+    CALL_NEW_OBJECT_ARRAY,
+    CALL_SET_OBJECT_ARRAY_ELEMENT,
+    CALL_NEW_DIRECT_BYTE_BUFFER,
+    CALL_CALL_STATIC_OBJECT_METHOD,
+    CALL_CALL_STATIC_VOID_METHOD,
+    CALL_CALL_VOID_METHOD,
+    CALL_DELETE_LOCAL_REF,
+    CALL_EXCEPTION_CHECK,
+    CALL_COUNT
+} Call;
+
+static const char* callNames[CALL_COUNT] = {
+    "JNI_CreateJavaVM",
+    "FindClass",
+    "GetStaticMethodID",
+    "GetMethodID",
+    "GetStaticFieldID",
+    "NewStringUTF",
+    "NewObjectArray",
+    "SetObjectArrayElement",
+    "NewDirectByteBuffer",
+    "CallStaticObjectMethod",
+    "CallStaticVoidMethod",
+    "CallVoidMethod",
+    "DeleteLocalRef",
+    "ExceptionCheck"
+};
+
+static int callCounts[CALL_COUNT];
+static long long loadNanos;
+static long long vmCreatedNanos;
+static int numOptions;
+static int numProperties;
+static int numArgs;
+static int pendingException;
+
+static long long nanoTime() {
+    struct timespec now;
+    clock_gettime(CLOCK_MONOTONIC, &now);
+    return (long long)now.tv_sec * 1000000000LL + now.tv_nsec;
+}
+
+__attribute__((constructor))
+static void onLoad() {
+    loadNanos = nanoTime();
+}
+
+// Writes everything with a single call, so that lines of concurrent invocations don't interleave
+static void writeRecord(long long mainNanos) {
+    const char* target = getenv("STUB_JVM_RECORD");
+    if (target == NULL || *target == '\0') return;
+
+    char line[2048];
+    int length = snprintf(line, sizeof(line),
+        "{\"pid\":%d,\"options\":%d,\"properties\":%d,\"args\":%d,\"loadToVmNanos\":%lld,\"vmToMainNanos\":%lld,\"calls\":{",
+        (int)getpid(), numOptions, numProperties, numArgs, vmCreatedNanos - loadNanos, mainNanos - vmCreatedNanos);
+    for (int i = 0; i < CALL_COUNT && length < (int)sizeof(line); i++) {
+        length += snprintf(line + length, sizeof(line) - length, "%s\"%s\":%d", i == 0 ? "" : ",", callNames[i], callCounts[i]);
+    }
+    if (length < (int)sizeof(line)) {
+        length += snprintf(line + length, sizeof(line) - length, "}}\n");
+    }
+    if (length >= (int)sizeof(line)) {
+        length = sizeof(line) - 1;
+        line[length - 1] = '\n';
+    }
+
+    int fd = strcmp(target, "stderr") == 0 ? STDERR_FILENO : open(target, O_WRONLY | O_CREAT | O_APPEND | O_CLOEXEC, 0644);
+    if (fd < 0) {
+        fprintf(stderr, "[STUB] Could not open %s\n", target);
+        return;
+    }
+    if (write(fd, line, length) != length) {
+        fprintf(stderr, "[STUB] Could not write record to %s\n", target);
+    }
+    if (fd != STDERR_FILENO) {
+        close(fd);
+    }
+}
+
+// =========== OBJECTS ===========
+// Local references are plain pointers that leak until the process exits
+typedef struct {
+    jsize length;
+    jobject elements[];
+} StubArray;
+
+typedef struct {
+    void* address;
+    jlong capacity;
+} StubBuffer;
+
+static int stubClass;
+static int stubObject;
+static int methodMain;
+static int methodSetProperty;
+static int methodDecode;
+static int methodOther;
+static int stubField;
+
+static int isEnabled(const char* name) {
+    const char* value = getenv(name);
+    return value != NULL && *value != '\0' && strcmp(value, "0") != 0;
+}
+
+// =========== JNI FUNCTIONS ===========
+static jclass JNICALL FindClass(JNIEnv* env, const char* name) {
+    callCounts[CALL_FIND_CLASS]++;
+    return (jclass)&stubClass;
+}
+
+static jmethodID JNICALL GetStaticMethodID(JNIEnv* env, jclass clazz, const char* name, const char* sig) {
+    callCounts[CALL_GET_STATIC_METHOD_ID]++;
+    if (strcmp(name, "main") == 0) return (jmethodID)&methodMain;
+    if (strcmp(name, "setProperty") == 0) return (jmethodID)&methodSetProperty;
+    if (strcmp(name, "decode") == 0) return (jmethodID)&methodDecode;
+    return (jmethodID)&methodOther;
+}
+
+static jmethodID JNICALL GetMethodID(JNIEnv* env, jclass clazz, const char* name, const char* sig) {
+    callCounts[CALL_GET_METHOD_ID]++;
+    return (jmethodID)&methodOther;
+}
+
+static jfieldID JNICALL GetStaticFieldID(JNIEnv* env, jclass clazz, const char* name, const char* sig) {
+    callCounts[CALL_GET_STATIC_FIELD_ID]++;
+    return (jfieldID)&stubField;
+}
+
+static jobject JNICALL GetStaticObjectField(JNIEnv* env, jclass clazz, jfieldID field) {
+    return (jobject)&stubObject;
+}
+
+static jclass JNICALL GetObjectClass(JNIEnv* env, jobject obj) {
+    return (jclass)&stubClass;
+}
+
+static jstring JNICALL NewStringUTF(JNIEnv* env, const char* utf) {
+    callCounts[CALL_NEW_STRING_UTF]++;
+    return (jstring)strdup(utf);
+}
+
+static jobjectArray JNICALL NewObjectArray(JNIEnv* env, jsize length, jclass clazz, jobject init) {
+    callCounts[CALL_NEW_OBJECT_ARRAY]++;
+    StubArray* array = (StubArray*)calloc(1, sizeof(StubArray) + length * sizeof(jobject));
+    if (array != NULL) {
+        array->length = length;
+    }
+    return (jobjectArray)array;
+}
+
+static void JNICALL SetObjectArrayElement(JNIEnv* env, jobjectArray array, jsize index, jobject value) {
+    callCounts[CALL_SET_OBJECT_ARRAY_ELEMENT]++;
+    // The launcher deletes the local ref right after, so the array keeps its own copy
+    ((StubArray*)array)->elements[index] = (jobject)strdup((const char*)value);
+}
+
+static jobject JNICALL NewDirectByteBuffer(JNIEnv* env, void* address, jlong capacity) {
+    callCounts[CALL_NEW_DIRECT_BYTE_BUFFER]++;
+    StubBuffer* buffer = (StubBuffer*)malloc(sizeof(StubBuffer));
+    if (buffer != NULL) {
+        buffer->address = address;
+        buffer->capacity = capacity;
+    }
+    return (jobject)buffer;
+}
+
+// Emulates LauncherArgs.decode(ByteBuffer, int) and System.setProperty(String, String)
+static jobject JNICALL CallStaticObjectMethod(JNIEnv* env, jclass clazz, jmethodID method, ...) {
+    callCounts[CALL_CALL_STATIC_OBJECT_METHOD]++;
+    va_list args;
+    va_start(args, method);
+    jobject result = NULL;
+    if (method == (jmethodID)&methodDecode) {
+        StubBuffer* buffer = va_arg(args, StubBuffer*);
+        jint length = va_arg(args, jint);
+        StubArray* array = (StubArray*)NewObjectArray(env, length, NULL, NULL);
+        const char* position = (const char*)buffer->address;
+        for (jint i = 0; i < length; i++) {
+            array->elements[i] = (jobject)strdup(position);
+            position += strlen(position) + 1;
+        }
+        callCounts[CALL_NEW_OBJECT_ARRAY]--; // counted as part of the decode call
+        result = (jobject)array;
+    } else if (method == (jmethodID)&methodSetProperty) {
+        const char* key = va_arg(args, const char*);
+        const char* value = va_arg(args, const char*);
+        numProperties++;
+        if (isEnabled("STUB_JVM_ECHO")) {
+            printf("property %s=%s\n", key, value);
+        }
+    }
+    va_end(args);
+    return result;
+}
+
+static void JNICALL CallStaticVoidMethod(JNIEnv* env, jclass clazz, jmethodID method, ...) {
+    callCounts[CALL_CALL_STATIC_VOID_METHOD]++;
+    if (method != (jmethodID)&methodMain) return;
+    long long mainNanos = nanoTime();
+
+    va_list args;
+    va_start(args, method);
+    StubArray* javaArgs = va_arg(args, StubArray*);
+    va_end(args);
+    numArgs = javaArgs->length;
+    writeRecord(mainNanos);
+
+    if (isEnabled("STUB_JVM_ECHO")) {
+        for (jsize i = 0; i < javaArgs->length; i++) {
+            printf("arg %s\n", (const char*)javaArgs->elements[i]);
+        }
+    }
+    const char* exitCode = getenv("STUB_JVM_EXIT");
+    if (exitCode != NULL && *exitCode != '\0') {
+        fflush(stdout);
+        exit(atoi(exitCode));
+    }
+    pendingException = isEnabled("STUB_JVM_THROW");
+}
+
+static void JNICALL CallVoidMethod(JNIEnv* env, jobject obj, jmethodID method, ...) {
+    callCounts[CALL_CALL_VOID_METHOD]++;
+    fflush(stdout); // PrintStream.flush()
+}
+
+static void JNICALL DeleteLocalRef(JNIEnv* env, jobject obj) {
+    callCounts[CALL_DELETE_LOCAL_REF]++;
+}
+
+static jboolean JNICALL ExceptionCheck(JNIEnv* env) {
+    callCounts[CALL_EXCEPTION_CHECK]++;
+    return pendingException ? JNI_TRUE : JNI_FALSE;
+}
+
+static void JNICALL ExceptionDescribe(JNIEnv* env) {
+    if (pendingException) {
+        fprintf(stderr, "Exception in thread \"main\" stub.StubException\n");
+    }
+}
+
+static void JNICALL ExceptionClear(JNIEnv* env) {
+    pendingException = 0;
+}
+
+static void JNICALL Unsupported() {
+    fprintf(stderr, "[STUB] The launcher called a JNI function that is not supported by the stub\n");
+    abort();
+}
+
+static jint JNICALL DestroyJavaVM(JavaVM* vm) {
+    fflush(stdout);
+    return JNI_OK;
+}
+
+static jint JNICALL UnsupportedVM() {
+    Unsupported();
+    return JNI_ERR;
+}
+
+// =========== VM ===========
+static struct JNINativeInterface_ functions;
+static struct JNIInvokeInterface_ invokeFunctions;
+static JNIEnv stubEnv = &functions;
+static JavaVM stubVM = &invokeFunctions;
+
+static void initFunctions() {
+    functions.FindClass = FindClass;
+    functions.GetStaticMethodID = GetStaticMethodID;
+    functions.GetMethodID = GetMethodID;
+    functions.GetStaticFieldID = GetStaticFieldID;
+    functions.GetStaticObjectField = GetStaticObjectField;
+    functions.GetObjectClass = GetObjectClass;
+    functions.NewStringUTF = NewStringUTF;
+    functions.NewObjectArray = NewObjectArray;
+    functions.SetObjectArrayElement = SetObjectArrayElement;
+    functions.NewDirectByteBuffer = NewDirectByteBuffer;
+    functions.CallStaticObjectMethod = CallStaticObjectMethod;
+    functions.CallStaticVoidMethod = CallStaticVoidMethod;
+    functions.CallVoidMethod = CallVoidMethod;
+    functions.DeleteLocalRef = DeleteLocalRef;
+    functions.ExceptionCheck = ExceptionCheck;
+    functions.ExceptionDescribe = ExceptionDescribe;
+    functions.ExceptionClear = ExceptionClear;
+    invokeFunctions.DestroyJavaVM = DestroyJavaVM;
+
+    // Fail loudly instead of crashing on a null pointer if the launcher starts using other functions
+    void** slots = (void**)&functions;
+    for (size_t i = 4; i < sizeof(functions) / sizeof(void*); i++) {
+        if (slots[i] == NULL) slots[i] = (void*)Unsupported;
+    }
+    slots = (void**)&invokeFunctions;
+    for (size_t i = 3; i < sizeof(invokeFunctions) / sizeof(void*); i++) {
+        if (slots[i] == NULL) slots[i] = (void*)UnsupportedVM;
+    }
+}
+
+JNIEXPORT jint JNICALL JNI_CreateJavaVM(JavaVM** pvm, void** penv, void* vmArgs) {
+    callCounts[CALL_CREATE_VM]++;
+    JavaVMInitArgs* args = (JavaVMInitArgs*)vmArgs;
+    numOptions = args->nOptions;
+    if (isEnabled("STUB_JVM_ECHO")) {
+        for (int i = 0; i < args->nOptions; i++) {
+            printf("option %s\n", args->options[i].optionString);
+        }
+    }
+    initFunctions();
+    *pvm = &stubVM;
+    *penv = &stubEnv;
+    vmCreatedNanos = nanoTime();
+    return JNI_OK;
+}